@@ -0,0 +1,138 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Generated class files, jars and hierarchies shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Class file with extra constant pool entries: utf8Count strings plus a Class/NameAndType/Methodref
+     * for every fourth of them, and wideCount long + wideCount double constants (two slots each).
+     */
+    static byte[] classBytes(final String name, final String superName, final int utf8Count, final int wideCount) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(65);
+
+            final int refs = utf8Count / 4;
+            out.writeShort(5 + utf8Count + refs * 3 + wideCount * 4);
+            out.writeByte(1);
+            out.writeUTF(name);
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF(superName);
+            out.writeByte(7);
+            out.writeShort(3);
+
+            int idx = 5;
+            final int firstUtf8 = idx;
+            for (int i = 0; i < utf8Count; i++, idx++) {
+                out.writeByte(1);
+                out.writeUTF("com/example/generated/Member" + i + "$With$A$Reasonably$Long$Name");
+            }
+            for (int i = 0; i < refs; i++, idx += 3) {
+                out.writeByte(12);                    // NameAndType
+                out.writeShort(firstUtf8 + i);
+                out.writeShort(firstUtf8 + i + 1);
+                out.writeByte(7);                     // Class
+                out.writeShort(firstUtf8 + i);
+                out.writeByte(10);                    // Methodref -> Class, NameAndType
+                out.writeShort(idx + 1);
+                out.writeShort(idx);
+            }
+            for (int i = 0; i < wideCount; i++) {
+                out.writeByte(5);
+                out.writeLong(i * 31L);
+                out.writeByte(6);
+                out.writeDouble(i * 0.5d);
+            }
+
+            out.writeShort(0x0001);
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(0); // methods
+            out.writeShort(0); // attributes
+        }
+        return baos.toByteArray();
+    }
+
+    static Path writeJar(final Path target, final int classes, final boolean stored) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(target))) {
+            for (int i = 0; i < classes; i++) {
+                final String name = "com/example/p" + (i % 50) + "/Impl" + i;
+                final byte[] bytes = classBytes(name, i % 3 == 0 ? "com/example/Base" : "java/lang/Object", 40, 4);
+                final JarEntry entry = new JarEntry(name + ".class");
+                if (stored) {
+                    final CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(bytes.length);
+                    entry.setCompressedSize(bytes.length);
+                    entry.setCrc(crc.getValue());
+                }
+                jos.putNextEntry(entry);
+                jos.write(bytes);
+                jos.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    // Chain Level0 -> Level1 -> ... -> Level(depth-1) -> Base
+    static Map<String, ClassHeader> deepHierarchy(final int depth) {
+        final Map<String, ClassHeader> headers = new HashMap<>();
+        headers.put("com/example/Base", new ClassHeader(0x0400, "java/lang/Object"));
+        for (int i = 0; i < depth; i++) {
+            headers.put("com/example/Level" + i, new ClassHeader(0, i + 1 < depth ? "com/example/Level" + (i + 1) : "com/example/Base"));
+        }
+        return headers;
+    }
+
+    // width direct subclasses of Base plus width unrelated classes
+    static Map<String, ClassHeader> wideHierarchy(final int width) {
+        final Map<String, ClassHeader> headers = new HashMap<>();
+        headers.put("com/example/Base", new ClassHeader(0x0400, "java/lang/Object"));
+        for (int i = 0; i < width; i++) {
+            headers.put("com/example/Impl" + i, new ClassHeader(0, "com/example/Base"));
+            headers.put("com/other/Plain" + i, new ClassHeader(0, "java/lang/Object"));
+        }
+        return headers;
+    }
+
+    static String reflectConfig(final int entries) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"com.example.Existing").append(i).append("\",\"allDeclaredConstructors\":").append(i % 2 == 0).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    static void write(final Path target, final byte[] bytes) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (OutputStream out = Files.newOutputStream(target)) {
+            out.write(bytes);
+        }
+    }
+}
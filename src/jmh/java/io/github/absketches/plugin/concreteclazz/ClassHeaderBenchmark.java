@@ -0,0 +1,46 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassHeaderBenchmark {
+
+    @Param({"small", "hugeConstantPool", "wideConstants"})
+    public String shape;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        bytes = switch (shape) {
+            case "small" -> BenchmarkFixtures.classBytes("com/example/Small", "java/lang/Object", 8, 0);
+            case "hugeConstantPool" -> BenchmarkFixtures.classBytes("com/example/Huge", "java/lang/Object", 20_000, 0);
+            case "wideConstants" -> BenchmarkFixtures.classBytes("com/example/Wide", "java/lang/Object", 64, 4_000);
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @Benchmark
+    public ClassHeader read() throws IOException {
+        return ClassHeader.read(new ByteArrayInputStream(bytes));
+    }
+}
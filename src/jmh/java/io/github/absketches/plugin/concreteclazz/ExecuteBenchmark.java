@@ -0,0 +1,82 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full execute() over a module with 500 classes and 20 dependency jars of 1000 classes each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ExecuteBenchmark {
+
+    private CodegenConcreteClassPlugin plugin;
+
+    @Setup
+    public void setup() throws Exception {
+        final Path root = Files.createTempDirectory("jmh-execute");
+        final Path classes = root.resolve("classes");
+        for (int i = 0; i < 500; i++) {
+            final String name = "com/module/Impl" + i;
+            BenchmarkFixtures.write(classes.resolve(name + ".class"), BenchmarkFixtures.classBytes(name, "com/example/Base", 40, 4));
+        }
+
+        final Set<Artifact> artifacts = new LinkedHashSet<>();
+        for (int i = 0; i < 20; i++) {
+            final DefaultArtifact artifact = new DefaultArtifact("g", "dep" + i, "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+            artifact.setFile(BenchmarkFixtures.writeJar(root.resolve("repo/dep" + i + ".jar"), 1_000, i % 2 == 0).toFile());
+            artifacts.add(artifact);
+        }
+
+        final MavenProject project = new MavenProject();
+        final Build build = new Build();
+        build.setOutputDirectory(classes.toString());
+        build.setDirectory(root.toString());
+        project.setBuild(build);
+        project.setGroupId("io.bench");
+        project.setArtifactId("module");
+        project.setArtifacts(artifacts);
+
+        plugin = new CodegenConcreteClassPlugin();
+        plugin.setLog(new SystemStreamLog() {
+            @Override
+            public void info(final CharSequence content) {} // Keep the summary line out of the JMH output
+        });
+        TestUtils.setField(plugin, "project", project);
+        TestUtils.setField(plugin, "baseClasses", "com.example.Base");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "usePrecompiledLists", true);
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "pipelineThreshold", 5000);
+        TestUtils.setField(plugin, "maxBytesInFlight", 64L << 20);
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        plugin.execute();
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves every header against one base with a fresh cache, like gatherConcreteClasses does per base.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyBenchmark {
+
+    @Param({"deep", "wide"})
+    public String shape;
+
+    private Map<String, ClassHeader> headers;
+
+    @Setup
+    public void setup() {
+        headers = "deep".equals(shape) ? BenchmarkFixtures.deepHierarchy(250) : BenchmarkFixtures.wideHierarchy(20_000);
+    }
+
+    @Benchmark
+    public int resolveAll() {
+        final Map<String, Boolean> cache = new HashMap<>();
+        int found = 0;
+        for (String name : headers.keySet()) {
+            if (ClassFileUtils.isSubclassOfBase(name, headers, cache, "com/example/Base"))
+                found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header scan of one dependency jar through ScanEngine.prepareToScanJar (no precompiled index inside).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JarScanBenchmark {
+
+    @Param({"100", "10000"})
+    public int classes;
+
+    @Param({"true", "false"})
+    public boolean stored;
+
+    @Param({"0", "5000"})
+    public int pipelineThreshold;
+
+    private ScanEngine engine;
+    private Path jar;
+
+    @Setup
+    public void setup() throws Exception {
+        jar = BenchmarkFixtures.writeJar(Files.createTempDirectory("jmh-jar").resolve("dep.jar"), classes, stored);
+        engine = new ScanEngine(new ScanOptions()
+            .bases("com.example.Base")
+            .pipelineThreshold(pipelineThreshold)
+            .maxBytesInFlight(64L << 20), (msg, level) -> {});
+    }
+
+    @Benchmark
+    public Map<String, ClassHeader> scan() throws Exception {
+        ScanResult result = new ScanResult();
+        engine.prepareToScanJar(jar, result);
+        return result.headers;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeJsonBenchmark {
+
+    @Param({"1000", "20000"})
+    public int existingEntries;
+
+    private String existing;
+    private Set<String> classNames;
+
+    @Setup
+    public void setup() {
+        existing = BenchmarkFixtures.reflectConfig(existingEntries);
+        classNames = new LinkedHashSet<>();
+        for (int i = 0; i < existingEntries; i += 2) {
+            classNames.add("com/example/Existing" + i);  // half already present
+            classNames.add("com/example/Added" + i);     // half new
+        }
+    }
+
+    @Benchmark
+    public String merge() {
+        return ClassFileUtils.mergeJson(classNames, existing);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.absketches.plugin.concreteclazz;
+
+/**
+ * What scanning one dependency jar cost: entries, parsed class files, their declared uncompressed size and whether the precompiled index
+ * was used (or why not). Cached artifacts report the numbers of the scan that filled the cache.
+ */
+final class ArtifactScanStats {
+    final String path;
+    int entries;
+    int classesParsed;
+    long uncompressedBytes; // Sum of the declared sizes of the parsed entries, not a measure of inflater work
+    boolean precompiled;
+    boolean cached; // Restored from the scan cache without opening the jar
+    String scanReason; // Why the precompiled index couldn't be used, null on a hit
+    long nanos;
+
+    ArtifactScanStats(final String path) {
+        this.path = path;
+    }
+}
@@ -10,11 +10,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TreeSet;
@@ -23,9 +22,16 @@ import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
 import static berlin.yuna.typemap.logic.JsonDecoder.jsonListOf;
+import static berlin.yuna.typemap.logic.JsonDecoder.jsonMapOf;
 
 final class ClassFileUtils {
     private static final String BASE_JAVA_CLASS = "java/lang/Object";
+    private static final String NATIVE_IMAGE_DIR = "META-INF/native-image/";
+    private static final String REFLECT_CONFIG = "reflect-config.json";
+    private static final List<String> CLASSES_ROOTS = List.of("BOOT-INF/classes/", "WEB-INF/classes/");
+    private static final List<String> NESTED_LIB_DIRS = List.of("BOOT-INF/lib/", "WEB-INF/lib/", "lib/");
+    private static final String VERSIONS_DIR = "META-INF/versions/";
+    static final String INDEX_LISTING = "index.list"; // Names of the .properties files in the output dir, one per line
 
     private ClassFileUtils() {}
 
@@ -46,6 +52,54 @@ final class ClassFileUtils {
         return classFilePath.substring(0, classFilePath.length() - 6);
     }
 
+    // Jar entry -> internal name, classes of repackaged archives live below BOOT-INF/classes/ or WEB-INF/classes/,
+    // versioned classes of multi-release jars below META-INF/versions/N/
+    static String classKey(final String entryName) {
+        final int release = releaseOf(entryName);
+        final String name = release > 0 ? entryName.substring(VERSIONS_DIR.length() + String.valueOf(release).length() + 1) : entryName;
+        for (String root : CLASSES_ROOTS) {
+            if (name.startsWith(root))
+                return formatKey(name.substring(root.length()));
+        }
+        return formatKey(name);
+    }
+
+    static boolean isVersioned(final String entryName) {
+        return entryName.startsWith(VERSIONS_DIR);
+    }
+
+    // N of a META-INF/versions/N/ entry, 0 for unversioned or malformed names
+    static int releaseOf(final String entryName) {
+        if (!isVersioned(entryName))
+            return 0;
+        final int slash = entryName.indexOf('/', VERSIONS_DIR.length());
+        if (slash <= VERSIONS_DIR.length())
+            return 0;
+        try {
+            final int release = Integer.parseInt(entryName.substring(VERSIONS_DIR.length(), slash));
+            return entryName.substring(VERSIONS_DIR.length(), slash).equals(String.valueOf(release)) ? release : 0;
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+    }
+
+    // module-info and package-info declare no type to index
+    static boolean isInfoClass(final String entryName) {
+        final String file = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return "module-info.class".equals(file) || "package-info.class".equals(file);
+    }
+
+    // Inner jar of a Spring Boot / war / fat jar, directly below one of the lib directories
+    static boolean isNestedJar(final String entryName) {
+        if (!entryName.endsWith(".jar"))
+            return false;
+        for (String dir : NESTED_LIB_DIRS) {
+            if (entryName.startsWith(dir) && entryName.indexOf('/', dir.length()) < 0)
+                return true;
+        }
+        return false;
+    }
+
     // Accept comma-separated dot-notation base classes -> INTERNAL names
     static List<String> parseBaseClasses(String input) {
         if (input == null || input.isBlank()) return List.of();
@@ -57,20 +111,13 @@ final class ClassFileUtils {
         return out;
     }
 
-    /**
-     * Read ALL *.properties under the outputDir inside the JAR and merge.
-     * Returns true if all allowedBases were present across the discovered files.
-     */
-    static boolean readAllPropertiesFromJarDir(final JarFile jf, final String dirPrefix, final Map<String, Set<String>> precomputed, final Set<String> allowedBases) throws IOException {
-
-        Set<String> matched = new HashSet<>();
-        for (Enumeration<JarEntry> en = jf.entries(); en.hasMoreElements(); ) {
-            JarEntry e = en.nextElement();
-            String name = e.getName();
-
-            if (e.isDirectory() || !name.startsWith(dirPrefix) || !name.endsWith(".properties"))
-                continue;
+    static boolean isPrecompiledIndex(final JarEntry e, final String dirPrefix) {
+        return !e.isDirectory() && e.getName().startsWith(dirPrefix) && e.getName().endsWith(".properties");
+    }
 
+    // Reads the given precompiled index files, true if they cover all allowedBases
+    static boolean readProperties(final JarFile jf, final List<JarEntry> files, final Map<String, Set<String>> precomputed, final Set<String> allowedBases, final Set<String> matched) throws IOException {
+        for (JarEntry e : files) {
             try (InputStream in = jf.getInputStream(e); BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
                 Properties props = new Properties();
                 props.load(br);
@@ -80,9 +127,48 @@ final class ClassFileUtils {
         return matched.containsAll(allowedBases);
     }
 
+    /**
+     * The precompiled index files named by the listing in dirPrefix, found by name lookup without enumerating the jar.
+     * null if the jar has no listing or the listing names a missing file.
+     */
+    static List<JarEntry> readIndexListing(final JarFile jf, final String dirPrefix) throws IOException {
+        final JarEntry listing = jf.getJarEntry(dirPrefix + INDEX_LISTING);
+        if (null == listing)
+            return null;
+        final List<JarEntry> files = new ArrayList<>();
+        try (InputStream in = jf.getInputStream(listing)) {
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (line.isBlank())
+                    continue;
+                final JarEntry e = jf.getJarEntry(dirPrefix + line.trim());
+                if (null == e)
+                    return null;
+                files.add(e);
+            }
+        }
+        return files;
+    }
+
+    // Listing content with fileName added, names stay sorted so the content is stable between builds
+    static String addToIndexListing(final String existing, final String fileName) {
+        final Set<String> names = new TreeSet<>();
+        if (null != existing)
+            existing.lines().map(String::trim).filter(l -> !l.isEmpty()).forEach(names::add);
+        names.add(fileName);
+        return names.stream().map(n -> n + "\n").collect(Collectors.joining());
+    }
+
 
     // Class hierarchy walk
     static boolean isSubclassOfBase(final String internal, final Map<String, ClassHeader> headers, final Map<String, Boolean> cache, final String baseInternal) {
+        return isSubclassOfBase(internal, headers, Map.of(), cache, baseInternal);
+    }
+
+    /**
+     * Like {@link #isSubclassOfBase(String, Map, Map, String)}, but abstract classes of platform (also reachable
+     * through headers) are walked through, e.g. java.util.AbstractList.
+     */
+    static boolean isSubclassOfBase(final String internal, final Map<String, ClassHeader> headers, final Map<String, ClassHeader> platform, final Map<String, Boolean> cache, final String baseInternal) {
         Boolean cached = cache.get(internal);
         if (cached != null) return cached;
 
@@ -113,7 +199,7 @@ final class ClassFileUtils {
             }
 
             ClassHeader sup = headers.get(cur);
-            if (!isConcrete(sup)) {
+            if (!isConcrete(sup) && (null == sup || sup != platform.get(cur))) {
                 markVisited(visited, cache, false);
                 return false;
             }
@@ -125,14 +211,44 @@ final class ClassFileUtils {
         return false;
     }
 
+    /**
+     * Interface walk: true if the type implements baseInternal through its interfaces, superinterfaces or superclasses.
+     * Abstract classes and interfaces on the way are followed, only missing headers end a branch.
+     */
+    static boolean isImplementationOf(final String internal, final Map<String, ClassHeader> headers, final Map<String, Boolean> cache, final String baseInternal) {
+        Boolean cached = cache.get(internal);
+        if (cached != null) return cached;
+
+        ClassHeader h = headers.get(internal);
+        if (h == null) {
+            cache.put(internal, false);
+            return false;
+        }
+
+        cache.put(internal, false); // Guard against cycles in broken class files
+        boolean found = false;
+        for (String itf : h.interfaces()) {
+            if (baseInternal.equals(itf) || isImplementationOf(itf, headers, cache, baseInternal)) {
+                found = true;
+                break;
+            }
+        }
+
+        String sup = h.superInternalName();
+        if (!found && sup != null && !BASE_JAVA_CLASS.equals(sup))
+            found = baseInternal.equals(sup) || isImplementationOf(sup, headers, cache, baseInternal);
+
+        cache.put(internal, found);
+        return found;
+    }
+
     static String formatResultMap(final Map<String, Set<String>> resultMap) {
         StringBuilder sb = new StringBuilder();
         for (var entry : resultMap.entrySet()) {
             String key = toDotted(entry.getKey());
             String value = entry.getValue().stream()
                 .map(ClassFileUtils::toDotted)
-                .reduce((a, b) -> a + "," + b)
-                .orElse("");
+                .collect(Collectors.joining(","));
             sb.append(key).append("=").append(value).append("\n");
         }
         return String.valueOf(sb);
@@ -167,6 +283,61 @@ final class ClassFileUtils {
         return resultJsonArr.toJson();
     }
 
+    /**
+     * To create/modify reachability-metadata.json, typesByCondition maps the dotted base type (the typeReached condition,
+     * empty for unconditional entries) to dotted class names. Existing reflection entries with the same type and
+     * condition get allDeclaredConstructors, everything else in the file is kept as is.
+     */
+    static String mergeReachabilityJson(final Map<String, Set<String>> typesByCondition, final String existingJson) {
+        final LinkedTypeMap root = null == existingJson || existingJson.isBlank() ? new LinkedTypeMap() : jsonMapOf(existingJson);
+        final TypeList existingArr = root.containsKey("reflection") ? root.get(TypeList.class, "reflection") : new TypeList();
+        final Map<String, String[]> pending = new LinkedHashMap<>(); // condition|type -> [condition, type]
+        typesByCondition.forEach((condition, types) -> types.forEach(type -> pending.put(condition + "|" + type, new String[]{condition, type})));
+        final TypeList resultArr = new TypeList();
+
+        // Keep existing entries (if any), in their current order
+        for (Object json : existingArr) {
+            TypeInfo<?> jsonObj = TypeConverter.convertObj(json, TypeInfo.class);
+            if (null != jsonObj) {
+                String type = jsonObj.isPresent("type") ? jsonObj.get(String.class, "type") : jsonObj.get(String.class, "name");
+                String condition = jsonObj.isPresent("condition", "typeReached") ? jsonObj.get(String.class, "condition", "typeReached") : "";
+                if (null != type && null != pending.remove(condition + "|" + type))
+                    jsonObj.setPath("allDeclaredConstructors", true);
+            }
+            resultArr.add(null == jsonObj ? json : jsonObj);
+        }
+
+        for (String[] entry : pending.values()) {
+            LinkedTypeMap jsonObj = new LinkedTypeMap();
+            if (!entry[0].isEmpty())
+                jsonObj.put("condition", new LinkedTypeMap().putR("typeReached", entry[0]));
+            jsonObj.put("type", entry[1]);
+            jsonObj.put("allDeclaredConstructors", true);
+            resultArr.add(jsonObj);
+        }
+        root.put("reflection", resultArr);
+        return root.toJson();
+    }
+
+    static boolean isReflectConfig(final JarEntry e) {
+        return !e.isDirectory() && e.getName().startsWith(NATIVE_IMAGE_DIR) && e.getName().endsWith(REFLECT_CONFIG);
+    }
+
+    // Class names a dependency's reflect-config.json registers with allDeclaredConstructors, the flags mergeJson writes
+    static void readReflectConfig(final JarFile jf, final JarEntry e, final Set<String> provided) throws IOException {
+        try (InputStream in = jf.getInputStream(e)) {
+            collectCoveredClasses(new String(in.readAllBytes(), StandardCharsets.UTF_8), provided);
+        }
+    }
+
+    static void collectCoveredClasses(final String json, final Set<String> provided) {
+        for (Object entry : jsonListOf(json)) {
+            TypeInfo<?> jsonObj = TypeConverter.convertObj(entry, TypeInfo.class);
+            if (null != jsonObj && jsonObj.isPresent("name") && Boolean.TRUE.equals(jsonObj.get(Boolean.class, "allDeclaredConstructors")))
+                provided.add(jsonObj.get(String.class, "name"));
+        }
+    }
+
     private static void processEachJar(final Set<String> matched, final Properties props, final Set<String> allowedBases, final Map<String, Set<String>> precomputed) {
         for (String key : props.stringPropertyNames()) {
             String keyInternal = toInternal(key);
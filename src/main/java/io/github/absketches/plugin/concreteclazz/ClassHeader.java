@@ -3,13 +3,35 @@ package io.github.absketches.plugin.concreteclazz;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
- * Header: access flags and super internal name.
+ * Header: access flags, super internal name, directly implemented interfaces
+ * and the requested runtime-visible class annotations that are present.
+ * Nesting read from InnerClasses / EnclosingMethod is kept as extra bits above the class file's access flags.
  */
-record ClassHeader(int accessFlags, String superInternalName) {
+record ClassHeader(int accessFlags, String superInternalName, List<String> interfaces, Set<String> annotations) {
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
     private static final int ACC_INTERFACE = 0x0200;
     private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    static final int LOCAL_OR_ANONYMOUS = 0x10000; // Declared in a method or initializer, or without a name
+    static final int NON_PUBLIC_NESTED = 0x20000;  // Member class not declared public
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String INNER_CLASSES = "InnerClasses";
+    private static final String ENCLOSING_METHOD = "EnclosingMethod";
+
+    ClassHeader(int accessFlags, String superInternalName) {
+        this(accessFlags, superInternalName, List.of(), Set.of());
+    }
+
+    ClassHeader(int accessFlags, String superInternalName, List<String> interfaces) {
+        this(accessFlags, superInternalName, interfaces, Set.of());
+    }
 
     boolean isInterface() {
         return (accessFlags & ACC_INTERFACE) != 0;
@@ -19,7 +41,36 @@ record ClassHeader(int accessFlags, String superInternalName) {
         return (accessFlags & ACC_ABSTRACT) != 0;
     }
 
+    boolean isFinal() {
+        return (accessFlags & ACC_FINAL) != 0;
+    }
+
+    boolean isSynthetic() {
+        return (accessFlags & ACC_SYNTHETIC) != 0;
+    }
+
+    boolean isLocalOrAnonymous() {
+        return (accessFlags & LOCAL_OR_ANONYMOUS) != 0;
+    }
+
+    boolean isNonPublicNested() {
+        return (accessFlags & NON_PUBLIC_NESTED) != 0;
+    }
+
     static ClassHeader read(InputStream raw) throws IOException {
+        return read(raw, Set.of());
+    }
+
+    static ClassHeader read(InputStream raw, Set<String> annotationTypes) throws IOException {
+        return read(raw, annotationTypes, false);
+    }
+
+    /**
+     * Reads the header. When annotationTypes (internal names) is not empty, the rest of the class file is
+     * walked to collect which of them appear in the class level RuntimeVisibleAnnotations attribute.
+     * With nesting, the InnerClasses and EnclosingMethod attributes of nested classes ('$' in the name) are read too.
+     */
+    static ClassHeader read(InputStream raw, Set<String> annotationTypes, boolean nesting) throws IOException {
 
         final DataInputStream in = (raw instanceof DataInputStream dis) ? dis : new DataInputStream(raw);
 
@@ -58,16 +109,127 @@ record ClassHeader(int accessFlags, String superInternalName) {
         }
 
         final int access = in.readUnsignedShort();   // access_flags
-        in.readUnsignedShort();                      // this_class
+        final int thisIdx = in.readUnsignedShort();  // this_class
         final int superIdx = in.readUnsignedShort(); // super_class
+        final String superName = className(superIdx, classNameIndex, utf8); // internal name like "java/lang/Object"
+
+        final int interfacesCount = in.readUnsignedShort(); // interfaces_count
+        final List<String> interfaces = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            final String itf = className(in.readUnsignedShort(), classNameIndex, utf8);
+            if (itf != null)
+                interfaces.add(itf);
+        }
+
+        // Top level classes can't be local, anonymous or nested, their attributes are only needed for annotations
+        final String thisName = className(thisIdx, classNameIndex, utf8);
+        final boolean readNesting = nesting && null != thisName && thisName.indexOf('$') >= 0;
+        if (annotationTypes.isEmpty() && !readNesting)
+            return new ClassHeader(access, superName, List.copyOf(interfaces), Set.of());
+
+        final Set<String> annotations = new HashSet<>();
+        final int nestingFlags = readAttributes(in, utf8, classNameIndex, thisName, annotationTypes, readNesting, annotations);
+        return new ClassHeader(access | nestingFlags, superName, List.copyOf(interfaces), annotations.isEmpty() ? Set.of() : Set.copyOf(annotations));
+    }
 
-        String superName = null;
-        if (superIdx != 0) {
-            final int nameIdx = classNameIndex[superIdx]; // must point to a Utf8
-            if (nameIdx != 0) {
-                superName = utf8[nameIdx];  // internal name like "java/lang/Object"
+    // Skip fields and methods, then collect the requested annotations and the nesting flags from the class attributes
+    private static int readAttributes(final DataInputStream in, final String[] utf8, final int[] classNameIndex, final String thisName, final Set<String> annotationTypes, final boolean nesting, final Set<String> found) throws IOException {
+        skipMembers(in); // fields
+        skipMembers(in); // methods
+
+        int nestingFlags = 0;
+        final int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            final String name = utf8[in.readUnsignedShort()];
+            final long length = in.readInt() & 0xFFFFFFFFL;
+            if (!annotationTypes.isEmpty() && RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                final int numAnnotations = in.readUnsignedShort();
+                for (int a = 0; a < numAnnotations; a++) {
+                    final String type = descriptorToInternal(utf8[in.readUnsignedShort()]);
+                    if (type != null && annotationTypes.contains(type))
+                        found.add(type);
+                    skipElementValuePairs(in);
+                }
+            } else if (nesting && INNER_CLASSES.equals(name)) {
+                nestingFlags |= readInnerClasses(in, utf8, classNameIndex, thisName);
+            } else {
+                if (nesting && ENCLOSING_METHOD.equals(name))
+                    nestingFlags |= LOCAL_OR_ANONYMOUS; // Only local and anonymous classes have one
+                in.skipNBytes(length);
             }
         }
-        return new ClassHeader(access, superName);
+        return nestingFlags;
+    }
+
+    // The InnerClasses entry of the class itself: no outer class or no simple name means local or anonymous
+    private static int readInnerClasses(final DataInputStream in, final String[] utf8, final int[] classNameIndex, final String thisName) throws IOException {
+        int nestingFlags = 0;
+        final int numberOfClasses = in.readUnsignedShort();
+        for (int c = 0; c < numberOfClasses; c++) {
+            final int innerIdx = in.readUnsignedShort();
+            final int outerIdx = in.readUnsignedShort();
+            final int innerNameIdx = in.readUnsignedShort();
+            final int innerAccess = in.readUnsignedShort();
+            if (!thisName.equals(className(innerIdx, classNameIndex, utf8)))
+                continue;
+            if (0 == outerIdx || 0 == innerNameIdx)
+                nestingFlags |= LOCAL_OR_ANONYMOUS;
+            else if ((innerAccess & ACC_PUBLIC) == 0)
+                nestingFlags |= NON_PUBLIC_NESTED;
+        }
+        return nestingFlags;
+    }
+
+    // field_info / method_info: access, name, descriptor, attributes
+    private static void skipMembers(final DataInputStream in) throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.skipNBytes(6);
+            final int attributesCount = in.readUnsignedShort();
+            for (int a = 0; a < attributesCount; a++) {
+                in.skipNBytes(2);
+                in.skipNBytes(in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(final DataInputStream in) throws IOException {
+        final int numPairs = in.readUnsignedShort();
+        for (int p = 0; p < numPairs; p++) {
+            in.readUnsignedShort(); // element_name_index
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(final DataInputStream in) throws IOException {
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> in.readUnsignedShort(); // const / class index
+            case 'e' -> in.skipNBytes(4);                                                     // enum type + const name
+            case '@' -> {                                                                     // nested annotation
+                in.readUnsignedShort();
+                skipElementValuePairs(in);
+            }
+            case '[' -> {                                                                     // array
+                final int numValues = in.readUnsignedShort();
+                for (int i = 0; i < numValues; i++) skipElementValue(in);
+            }
+            default -> throw new IOException("Unknown element_value tag: " + (char) tag);
+        }
+    }
+
+    // "Lcom/foo/Bar;" -> "com/foo/Bar"
+    private static String descriptorToInternal(final String descriptor) {
+        if (descriptor == null || descriptor.length() < 3 || descriptor.charAt(0) != 'L' || !descriptor.endsWith(";"))
+            return null;
+        return descriptor.substring(1, descriptor.length() - 1);
+    }
+
+    // Resolve a CONSTANT_Class index to its Utf8 internal name, null if it doesn't point to one
+    private static String className(final int classIdx, final int[] classNameIndex, final String[] utf8) {
+        if (classIdx == 0 || classIdx >= classNameIndex.length)
+            return null;
+        final int nameIdx = classNameIndex[classIdx]; // must point to a Utf8
+        return nameIdx != 0 ? utf8[nameIdx] : null;
     }
 }
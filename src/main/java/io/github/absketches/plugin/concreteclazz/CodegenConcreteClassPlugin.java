@@ -10,42 +10,27 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 
 import java.io.File;
-import java.io.InputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.util.LinkedHashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.HashSet;
-
-import java.util.TreeSet;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatKey;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatResultMap;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isConcrete;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isSubclassOfBase;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.mergeJson;
 import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.parseBaseClasses;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.readAllPropertiesFromJarDir;
-import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toDotted;
 
 /**
  * Generates META-INF/io/github/absketches/plugin/services.index (module + dependencies) containing all concrete subclasses of the configured baseClass(es).
  * Merges into reflect-config.json to make applications GraalVM Native Image compatible.
+ * The scanning itself lives in {@link ScanEngine}, this goal only maps the Maven configuration onto it.
  * Uses precompiled indexes from dependencies if they exist.
  * Stores subclasses in memory and checks to avoid re-walking super chains.
  * Skips writing the index if content didn't change.
  * Bails early if the base type isn't present on the classpath.
+ * Optionally indexes concrete classes carrying configured annotations, collected during the same header scan.
  * Easy to locate all implementations of a base class across dependencies and consumers.
  */
 @Mojo(
@@ -54,7 +39,7 @@ import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toDotted;
     threadSafe = true,
     requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
 )
-public final class CodegenConcreteClassPlugin extends AbstractMojo {
+public class CodegenConcreteClassPlugin extends AbstractMojo {
 
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     private MavenProject project;
@@ -68,6 +53,13 @@ public final class CodegenConcreteClassPlugin extends AbstractMojo {
     @Parameter(property = "codegenConcreteClass.baseClasses", defaultValue = " ")
     private String baseClasses;
 
+    /**
+     * Annotation types whose (runtime-visible) concrete carriers are indexed alongside the base classes,
+     * e.g. -DcodegenConcreteClass.annotationClasses=org.abc.Plugin,...
+     */
+    @Parameter(property = "codegenConcreteClass.annotationClasses", defaultValue = " ")
+    private String annotationClasses;
+
     @Parameter(property = "codegenConcreteClass.outputFile", defaultValue = "services.properties")
     private String outputFile;
 
@@ -80,183 +72,286 @@ public final class CodegenConcreteClassPlugin extends AbstractMojo {
     @Parameter(property = "codegenConcreteClass.generateReflectConfig", defaultValue = "true")
     private boolean generateReflectConfig;
 
+    /**
+     * Also merge into GraalVM's reachability-metadata.json, with each implementation conditioned on its base type being reached
+     */
+    @Parameter(property = "codegenConcreteClass.generateReachabilityMetadata", defaultValue = "false")
+    private boolean generateReachabilityMetadata;
+
     /**
      * The reflected Classes can be set via -DcodegenConcreteClass.reflectedClasses=org.abc.impl1,...
      */
     @Parameter(property = "codegenConcreteClass.reflectedClasses", defaultValue = " ")
     private String reflectedClasses;
 
-    static final String outputDir = "META-INF/io/github/absketches/plugin/";
+    /**
+     * Skip reflect-config.json entries for classes which a dependency's own META-INF/native-image reflect-config.json
+     * already registers, so each module only writes the entries it adds.
+     */
+    @Parameter(property = "codegenConcreteClass.skipProvidedReflectConfig", defaultValue = "false")
+    private boolean skipProvidedReflectConfig;
+
+    /**
+     * Jars with at least this many class entries are scanned by a pipeline of inflate/parse workers (0 disables)
+     */
+    @Parameter(property = "codegenConcreteClass.pipelineThreshold", defaultValue = "5000")
+    private int pipelineThreshold;
+
+    /**
+     * Worker threads of the pipelined jar scan, 0 uses the available processors
+     */
+    @Parameter(property = "codegenConcreteClass.scanThreads", defaultValue = "0")
+    private int scanThreads;
+
+    /**
+     * Upper bound for compressed bytes submitted to, but not yet parsed by, the pipelined jar scan
+     */
+    @Parameter(property = "codegenConcreteClass.maxBytesInFlight", defaultValue = "67108864")
+    private long maxBytesInFlight;
+
+    /**
+     * Write target/codegen-svc-list-report.json ranking artifacts and bases by scan cost
+     */
+    @Parameter(property = "codegenConcreteClass.writeScanReport", defaultValue = "false")
+    private boolean writeScanReport;
+
+    /**
+     * Directory of the content-addressed per-jar scan cache (disabled when not set), see the export-cache and
+     * import-cache goals to share it between CI agents
+     */
+    @Parameter(property = "codegenConcreteClass.cacheDir")
+    private File cacheDir;
+
+    /**
+     * Unix domain socket of a local IndexDaemon shared by concurrent builds, scans in-process when it isn't running
+     */
+    @Parameter(property = "codegenConcreteClass.daemonSocket")
+    private File daemonSocket;
+
+    /**
+     * Dependency jars scanned in parallel, 0 uses the available processors, 1 scans sequentially
+     */
+    @Parameter(property = "codegenConcreteClass.artifactThreads", defaultValue = "1")
+    private int artifactThreads;
+
+    /**
+     * Per-artifact scan times of the last build, the most expensive artifacts are started first
+     */
+    @Parameter(property = "codegenConcreteClass.historyFile", defaultValue = "${project.build.directory}/codegen-svc-list-history.properties")
+    private File historyFile;
+
+    /**
+     * Java release whose classes of multi-release jars are indexed, 0 uses maven.compiler.release or else the running JDK
+     */
+    @Parameter(property = "codegenConcreteClass.release", defaultValue = "0")
+    private int release;
+
+    /**
+     * Where the per-JDK hierarchy snapshot (read once from jrt:/) is kept, so chains through JDK classes resolve.
+     * Unset, no snapshot is read or written
+     */
+    @Parameter(property = "codegenConcreteClass.platformSnapshotDir")
+    private File platformSnapshotDir;
+
+    /**
+     * Leave implementations listed by a dependency's precompiled index out of this module's index, so every index
+     * file only names what it adds and consumers union the files of all jars
+     */
+    @Parameter(property = "codegenConcreteClass.deltaIndex", defaultValue = "false")
+    private boolean deltaIndex;
+
+    /**
+     * Put the scanned hierarchy graph into the project context for later plugins of this module's build. Off by default,
+     * the context keeps the headers in memory until the reactor build ends
+     */
+    @Parameter(property = "codegenConcreteClass.publishGraph", defaultValue = "false")
+    private boolean publishGraph;
+
+    /**
+     * Drop synthetic, anonymous and local classes while scanning (read from ACC_SYNTHETIC, InnerClasses and
+     * EnclosingMethod), nothing can instantiate them by name
+     */
+    @Parameter(property = "codegenConcreteClass.excludeSynthetic", defaultValue = "false")
+    private boolean excludeSynthetic;
+
+    /**
+     * Never list nested classes that aren't declared public, they still count as superclasses of listed ones. Top-level
+     * classes are listed whatever their visibility, reflection can still instantiate both
+     */
+    @Parameter(property = "codegenConcreteClass.excludeNonPublicNested", defaultValue = "false")
+    private boolean excludeNonPublicNested;
+
+    /**
+     * Named indexes resolved from the same scan, each with its own bases, output file, reflect-config inclusion and
+     * filters. The top-level baseClasses / annotationClasses / outputFile form one more definition when set.
+     */
+    @Parameter
+    private List<IndexDefinition> definitions;
+
+    /**
+     * Header graph of this scan for the generate-test goal, which then only scans test-classes and test-scoped jars
+     */
+    @Parameter(property = "codegenConcreteClass.scanSnapshotFile", defaultValue = "${project.build.directory}/codegen-svc-list-scan.snapshot")
+    private File scanSnapshotFile;
+
+    /**
+     * Write the scan snapshot, off by default as it only pays off when the generate-test goal runs
+     */
+    @Parameter(property = "codegenConcreteClass.writeScanSnapshot", defaultValue = "false")
+    private boolean writeScanSnapshot;
+
+    static final String outputDir = ScanEngine.outputDir;
 
     @Override
     public void execute() throws MojoExecutionException {
-        final Map<String, ClassHeader> headers = new HashMap<>(); // Headers for each class
-        final Map<String, Set<String>> precompiledMap = new LinkedHashMap<>(); // precomputed impls per base
-        final Map<String, Set<String>> result = new LinkedHashMap<>();
-
         try {
-            final Path classesDir = Path.of(project.getBuild().getOutputDirectory());
-            if (!Files.isDirectory(classesDir)) {
-                log("[codegen-svc-list] No classes dir (skipping): " + classesDir, 'I');
+            final Path classesDir = classesDir();
+            if (null == classesDir)
                 return;
-            }
 
-            if (!baseClasses.isBlank()) {
-                // Build allowed base types
-                final List<String> requestedClasses = parseBaseClasses(baseClasses);
-
-                // Scan own classes
-                scanDirectory(classesDir, headers);
-
-                // Scan dependencies (use precomputed properties when available) - or always scan using property usePrecompiled=false
-                for (Artifact artifact : project.getArtifacts()) {
-                    processArtifact(artifact, headers, precompiledMap, requestedClasses);
-                }
-                log("[codegen-svc-list] headers size = " + headers.size(), 'I');
-
-                // For each configured base type, collect implementations
-                for (String base : requestedClasses) {
-                    final Map<String, Boolean> cache = new HashMap<>(); // Cache already iterated paths
-                    gatherConcreteClasses(base, headers, result, cache, precompiledMap);
-                }
-                writeProperties(classesDir, result);
-            }
-
-            if (generateReflectConfig) {
-                final List<String> requestedForReflection = parseBaseClasses(reflectedClasses);
-                final Set<String> reflectedClassSet = result.values().stream().flatMap(Set::stream).collect(Collectors.toCollection(LinkedHashSet::new));
-                reflectedClassSet.addAll(requestedForReflection.stream().map(ClassFileUtils::toDotted).collect(Collectors.toSet()));
-                writeReflectConfig(reflectedClassSet, classesDir);
-            } else {
-                log("[codegen-svc-list] reflect-config.json generation disabled", 'I');
-            }
+            final ScanOptions options = scanOptions();
+            final List<IndexWriter> writers = writers(classesDir);
+            if (writeScanSnapshot && null != scanSnapshotFile)
+                writers.add(new ScanSnapshot(scanSnapshotFile.toPath(), classesDir, options, this::log));
+            final HierarchyIndex index = new ScanEngine(options, this::log).run(classesDir, jars(), writers);
+            publish(HierarchyGraph.CONTEXT_KEY, index);
+            // Always-on one liner, the per-step details stay behind verbose and in the JFR events
+            getLog().info(index.summary());
         } catch (Exception ex) {
             log("Exception occurred: " + ex, 'E');
             throw new MojoExecutionException("codegen-svc-list failed", ex);
         }
     }
 
-    private void scanDirectory(final Path root, final Map<String, ClassHeader> out) throws IOException {
-        try (var stream = Files.walk(root)) {
-            var it = stream.filter(Files::isRegularFile)
-                .filter(p -> p.getFileName().toString().endsWith(".class"))
-                .iterator();
-            while (it.hasNext()) {
-                Path p = it.next();
-                String internal = root.relativize(p).toString().replace('\\', '/');
-                try (InputStream in = Files.newInputStream(p)) {
-                    out.put(formatKey(internal), ClassHeader.read(in));
-                }
-            }
-        }
+    // Later plugins of this module's build query the graph (as JDK functions) instead of scanning the classpath again
+    void publish(final String key, final HierarchyIndex index) {
+        if (publishGraph)
+            project.setContextValue(key, index.graph().queries());
     }
 
-    private void processArtifact(Artifact artifact, final Map<String, ClassHeader> headers, final Map<String, Set<String>> precompiledMap, final List<String> requestedClasses) {
-        File jar = artifact.getFile();
-        if (null != jar && jar.isFile() && "jar".equalsIgnoreCase(artifact.getType())) {
-            try {
-                prepareToScanJar(jar, headers, precompiledMap, requestedClasses);
-            } catch (IOException ioe) {
-                log("[codegen-svc-list] Jar scan failed for " + artifact + " (" + jar + "): " + ioe, 'E');
-            }
+    // null (logged) when the module has no classes dir
+    Path classesDir() {
+        final Path classesDir = Path.of(outputDirectory());
+        if (!Files.isDirectory(classesDir)) {
+            log("[codegen-svc-list] No classes dir (skipping): " + classesDir, 'I');
+            return null;
         }
+        return classesDir;
     }
 
-    private void prepareToScanJar(final File jar, final Map<String, ClassHeader> out, final Map<String, Set<String>> precomputed, final List<String> allowedBases) throws IOException {
-        try (JarFile jf = new JarFile(jar)) {
-            if (usePrecompiledLists && null != allowedBases && !allowedBases.isEmpty()) {
-                if (readAllPropertiesFromJarDir(jf, outputDir, precomputed, new HashSet<>(allowedBases))) {
-                    log("[codegen-svc-list] using precomputed properties from " + jar.getName(), 'I');
-                    return;
-                }
-                log("[codegen-svc-list] precomputed files missing entries for configured bases, will scan classes...", 'I');
-            }
-
-            // Either no properties or incomplete -> scan classes into headers
-            scanHeadersInJar(jf, jar.getName(), out);
+    List<IndexWriter> writers(final Path classesDir) {
+        final List<IndexWriter> writers = new ArrayList<>();
+        final List<IndexDefinition> defined = indexDefinitions();
+        if (defined.isEmpty()) {
+            writers.add(new PropertiesIndexWriter(classesDir.resolve(outputDir + outputFile), this::log));
+        } else {
+            for (IndexDefinition definition : defined)
+                writers.add(definition.writer(new PropertiesIndexWriter(classesDir.resolve(outputDir + definition.outputFile()), this::log)));
         }
-    }
-
-    private void scanHeadersInJar(final JarFile jf, final String name, final Map<String, ClassHeader> out) throws IOException {
-        log("[codegen-svc-list] Scanning classes in " + name, 'I');
-        Enumeration<JarEntry> en = jf.entries();
-        while (en.hasMoreElements()) {
-            JarEntry e = en.nextElement();
-            String classFileName = e.getName();
-            if (!classFileName.endsWith(".class"))
-                continue;
-            try (InputStream in = jf.getInputStream(e)) {
-                out.putIfAbsent(formatKey(classFileName), ClassHeader.read(in));
-            }
+        if (generateReflectConfig) {
+            writers.add(reflection(defined, new ReflectConfigWriter(nativeImageDir(classesDir).resolve("reflect-config.json"), this::log)));
+        } else {
+            log("[codegen-svc-list] reflect-config.json generation disabled", 'I');
+        }
+        if (generateReachabilityMetadata)
+            writers.add(reflection(defined, new ReachabilityMetadataWriter(nativeImageDir(classesDir).resolve("reachability-metadata.json"), this::log)));
+        if (writeScanReport) {
+            final String buildDir = project.getBuild().getDirectory();
+            if (null == buildDir)
+                log("[codegen-svc-list] No build directory, skipping scan report", 'W');
+            else
+                writers.add(new ScanReport(Path.of(buildDir, "codegen-svc-list-report.json"), this::log));
         }
+        return writers;
     }
 
-    private void gatherConcreteClasses(final String base, final Map<String, ClassHeader> headers, final Map<String, Set<String>> result, final Map<String, Boolean> cache, final Map<String, Set<String>> precompiledMap) {
+    // The configured definitions plus the top-level one, empty without definitions
+    private List<IndexDefinition> indexDefinitions() {
+        if (null == definitions || definitions.isEmpty())
+            return List.of();
+        final List<IndexDefinition> all = new ArrayList<>();
+        if (!parseBaseClasses(baseClasses).isEmpty() || !parseBaseClasses(annotationClasses).isEmpty())
+            all.add(new IndexDefinition().name("default").baseClasses(baseClasses).annotationClasses(annotationClasses).outputFile(outputFile));
+        all.addAll(definitions);
+        return all;
+    }
 
-        Set<String> services = new TreeSet<>(precompiledMap.getOrDefault(base, Set.of()));
+    private IndexWriter reflection(final List<IndexDefinition> defined, final IndexWriter writer) {
+        return defined.isEmpty() ? writer : IndexDefinition.reflectionWriter(defined, parseBaseClasses(reflectedClasses), writer);
+    }
 
-        for (var e : headers.entrySet()) {
-            String className = e.getKey();
-            ClassHeader header = e.getValue();
-            if (!isConcrete(header))
-                continue;
+    // Union of the top-level and the definitions' class names, dotted and without duplicates
+    private String allClasses(final String topLevel, final Function<IndexDefinition, List<String>> ofDefinition) {
+        final Set<String> names = new LinkedHashSet<>(parseBaseClasses(topLevel));
+        if (null != definitions)
+            definitions.forEach(d -> names.addAll(ofDefinition.apply(d)));
+        return names.stream().map(ClassFileUtils::toDotted).collect(Collectors.joining(","));
+    }
 
-            if (isSubclassOfBase(className, headers, cache, base)) {
-                services.add(className);
-            }
-        }
+    String outputDirectory() {
+        return project.getBuild().getOutputDirectory();
+    }
 
-        log("[codegen-svc-list] Implementations found for " + toDotted(base) + " = " + services.size(), 'I');
-        result.put(base, services);
+    MavenProject project() {
+        return project;
     }
 
-    // Write results as a .properties file: key = base class (dotted), value = comma-separated implementations
-    private void writeProperties(final Path classesDir, final Map<String, Set<String>> resultMap) throws IOException {
-        final Path outputPath = classesDir.resolve(outputDir + outputFile);
-        final Path parent = outputPath.getParent();
-        if (null == parent)
-            return;
-
-        Files.createDirectories(parent);
-        String newContent = formatResultMap(resultMap);
-        String oldContent = Files.exists(outputPath) ? Files.readString(outputPath, StandardCharsets.UTF_8) : null;
-        if (newContent.equals(oldContent)) {
-            log("[codegen-svc-list] Unchanged - skipping", 'I');
-            return;
-        }
+    Path scanSnapshotFile() {
+        return null == scanSnapshotFile ? null : scanSnapshotFile.toPath();
+    }
 
-        final Path tmp = Files.createTempFile(parent, "services", ".tmp");
-        try {
-            Files.writeString(tmp, newContent, StandardCharsets.UTF_8);
-            log("[codegen-svc-list] Copying tmp file to actual destination", 'I');
-            Files.move(tmp, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            log("[codegen-svc-list] Wrote properties for base types = " + resultMap.size(), 'I');
-        } finally {
-            Files.deleteIfExists(tmp);
-        }
+    List<Path> jars() {
+        return jarsOf(project.getArtifacts());
     }
 
-    private void writeReflectConfig(final Set<String> classNames, final Path classesDir) throws IOException {
-        if (null == classNames || classNames.isEmpty()) {
-            log("[codegen-svc-list] Nothing to write", 'I');
-            return;
-        }
-        final Path configOutput = classesDir
+    private Path nativeImageDir(final Path classesDir) {
+        return classesDir
             .resolve("META-INF/native-image")
             .resolve(project.getGroupId())
-            .resolve(project.getArtifactId())
-            .resolve("reflect-config.json");
+            .resolve(project.getArtifactId());
+    }
 
-        Files.createDirectories(configOutput.getParent());
+    ScanOptions scanOptions() {
+        return new ScanOptions()
+            .bases(allClasses(baseClasses, IndexDefinition::bases))
+            .annotations(allClasses(annotationClasses, IndexDefinition::annotations))
+            .reflectedClasses(reflectedClasses)
+            .usePrecompiledLists(usePrecompiledLists)
+            .skipProvidedReflectConfig(skipProvidedReflectConfig)
+            .pipelineThreshold(pipelineThreshold)
+            .scanThreads(scanThreads)
+            .maxBytesInFlight(maxBytesInFlight)
+            .cacheDir(null == cacheDir ? null : cacheDir.toPath())
+            .daemonSocket(null == daemonSocket ? null : daemonSocket.toPath())
+            .artifactThreads(artifactThreads)
+            .historyFile(null == historyFile ? null : historyFile.toPath())
+            .release(release > 0 ? release : compilerRelease())
+            .platformSnapshotDir(null == platformSnapshotDir ? null : platformSnapshotDir.toPath())
+            .deltaIndex(deltaIndex)
+            .excludeSynthetic(excludeSynthetic)
+            .excludeNonPublicNested(excludeNonPublicNested);
+    }
 
-        final String existing = Files.exists(configOutput) ? Files.readString(configOutput, StandardCharsets.UTF_8) : null;
+    private int compilerRelease() {
+        try {
+            return Integer.parseInt(project.getProperties().getProperty("maven.compiler.release", "0").trim());
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+    }
 
-        final String json = mergeJson(classNames, existing);
-        Files.writeString(configOutput, json, StandardCharsets.UTF_8);
-        log("[codegen-svc-list] Updated " + classNames.size() + " classes into " + configOutput, 'I');
+    // Only resolved jar artifacts take part in the scan
+    static List<Path> jarsOf(final Collection<Artifact> artifacts) {
+        final List<Path> jars = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            File jar = artifact.getFile();
+            if (null != jar && jar.isFile() && "jar".equalsIgnoreCase(artifact.getType()))
+                jars.add(jar.toPath());
+        }
+        return jars;
     }
 
-    private void log(final String msg, final char level) {
+    void log(final String msg, final char level) {
         if ('E' == level) {
             getLog().error(msg);
         } else if (verbose) {
@@ -0,0 +1,126 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standalone entry point of the {@link ScanEngine} for Gradle, Bazel or plain scripts, e.g.
+ * <pre>
+ * java -cp codegen-concrete-class.jar:type-map.jar io.github.absketches.plugin.concreteclazz.ConcreteClassIndexCli \
+ *   --classes=build/classes --classpath=a.jar:b.jar --baseClasses=org.abc.Service --reflectConfig=build/reflect-config.json
+ * </pre>
+ * Options mirror the Maven parameters, flags without a value mean true. Exit code is 0 on success, 1 on a failed scan
+ * and 2 on bad arguments.
+ */
+public final class ConcreteClassIndexCli {
+
+    private ConcreteClassIndexCli() {}
+
+    public static void main(final String[] args) {
+        final int exit = run(args, System.out, System.err);
+        if (exit != 0)
+            System.exit(exit);
+    }
+
+    static int run(final String[] args, final PrintStream out, final PrintStream err) {
+        final Map<String, String> opts = parseArgs(args);
+        if (null == opts || !opts.containsKey("classes")) {
+            err.println("Usage: --classes=<dir> [--classpath=<jar" + File.pathSeparator + "jar>] [--baseClasses=<a.B,...>] [--annotationClasses=<a.C,...>]"
+                + " [--outputFile=services.properties] [--reflectConfig=<file>] [--reachabilityMetadata=<file>] [--reflectedClasses=<a.D,...>] [--scanReport=<file>]"
+                + " [--usePrecompiledLists=true] [--skipProvidedReflectConfig] [--pipelineThreshold=5000] [--scanThreads=0] [--cacheDir=<dir>] [--daemonSocket=<path>] [--artifactThreads=1] [--historyFile=<file>] [--release=<N>] [--platformSnapshotDir=<dir>] [--deltaIndex] [--excludeSynthetic] [--excludeNonPublicNested] [--verbose]");
+            return 2;
+        }
+
+        final boolean verbose = flag(opts, "verbose", false);
+        final ScanLog log = (msg, level) -> {
+            if ('E' == level)
+                err.println(msg);
+            else if (verbose)
+                out.println(msg);
+        };
+
+        try {
+            final Path classesDir = Path.of(opts.get("classes"));
+            if (!Files.isDirectory(classesDir)) {
+                err.println("[codegen-svc-list] No classes dir: " + classesDir);
+                return 2;
+            }
+            final ScanOptions options = new ScanOptions()
+                .bases(opts.get("baseClasses"))
+                .annotations(opts.get("annotationClasses"))
+                .reflectedClasses(opts.get("reflectedClasses"))
+                .usePrecompiledLists(flag(opts, "usePrecompiledLists", true))
+                .skipProvidedReflectConfig(flag(opts, "skipProvidedReflectConfig", false))
+                .pipelineThreshold(Integer.parseInt(opts.getOrDefault("pipelineThreshold", "5000")))
+                .scanThreads(Integer.parseInt(opts.getOrDefault("scanThreads", "0")))
+                .maxBytesInFlight(Long.parseLong(opts.getOrDefault("maxBytesInFlight", "67108864")))
+                .cacheDir(opts.containsKey("cacheDir") ? Path.of(opts.get("cacheDir")) : null)
+                .daemonSocket(opts.containsKey("daemonSocket") ? Path.of(opts.get("daemonSocket")) : null)
+                .artifactThreads(Integer.parseInt(opts.getOrDefault("artifactThreads", "1")))
+                .historyFile(opts.containsKey("historyFile") ? Path.of(opts.get("historyFile")) : null)
+                .release(Integer.parseInt(opts.getOrDefault("release", "0")))
+                .platformSnapshotDir(opts.containsKey("platformSnapshotDir") ? Path.of(opts.get("platformSnapshotDir")) : null)
+                .deltaIndex(flag(opts, "deltaIndex", false))
+                .excludeSynthetic(flag(opts, "excludeSynthetic", false))
+                .excludeNonPublicNested(flag(opts, "excludeNonPublicNested", false));
+
+            final List<IndexWriter> writers = new ArrayList<>();
+            writers.add(new PropertiesIndexWriter(classesDir.resolve(ScanEngine.outputDir + opts.getOrDefault("outputFile", "services.properties")), log));
+            if (opts.containsKey("reflectConfig"))
+                writers.add(new ReflectConfigWriter(Path.of(opts.get("reflectConfig")), log));
+            if (opts.containsKey("reachabilityMetadata"))
+                writers.add(new ReachabilityMetadataWriter(Path.of(opts.get("reachabilityMetadata")), log));
+            if (opts.containsKey("scanReport"))
+                writers.add(new ScanReport(Path.of(opts.get("scanReport")), log));
+
+            final HierarchyIndex index = new ScanEngine(options, log).run(classesDir, classpathOf(opts.get("classpath")), writers);
+            out.println(index.summary());
+            return 0;
+        } catch (NumberFormatException nfe) {
+            err.println("[codegen-svc-list] Invalid number: " + nfe.getMessage());
+            return 2;
+        } catch (Exception ex) {
+            err.println("[codegen-svc-list] failed: " + ex);
+            return 1;
+        }
+    }
+
+    // --key=value or --flag, null on anything else
+    static Map<String, String> parseArgs(final String[] args) {
+        final Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.length() == 2)
+                return null;
+            final int eq = arg.indexOf('=');
+            if (eq < 0)
+                opts.put(arg.substring(2), "true");
+            else
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+
+    private static boolean flag(final Map<String, String> opts, final String key, final boolean fallback) {
+        final String value = opts.get(key);
+        return null == value ? fallback : Boolean.parseBoolean(value);
+    }
+
+    // Existing .jar files of the path-separated classpath, directories and other entries are ignored
+    private static List<Path> classpathOf(final String classpath) {
+        final List<Path> jars = new ArrayList<>();
+        if (null == classpath || classpath.isBlank())
+            return jars;
+        for (String entry : classpath.split(File.pathSeparator)) {
+            final Path p = Path.of(entry.trim());
+            if (!entry.isBlank() && Files.isRegularFile(p) && p.toString().endsWith(".jar"))
+                jars.add(p);
+        }
+        return jars;
+    }
+}
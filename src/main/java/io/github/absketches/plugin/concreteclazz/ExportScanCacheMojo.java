@@ -0,0 +1,33 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Packs the scan cache directory into a single compressed bundle, e.g. at the end of a CI pipeline so the next agent
+ * can restore it with the import-cache goal.
+ */
+@Mojo(name = "export-cache", threadSafe = true, aggregator = true)
+public final class ExportScanCacheMojo extends AbstractMojo {
+
+    @Parameter(property = "codegenConcreteClass.cacheDir", required = true)
+    private File cacheDir;
+
+    @Parameter(property = "codegenConcreteClass.cacheBundle", required = true)
+    private File cacheBundle;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try {
+            final int entries = ScanCache.exportBundle(cacheDir.toPath(), cacheBundle.toPath());
+            getLog().info("[codegen-svc-list] Exported " + entries + " cached jar scans to " + cacheBundle);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException("codegen-svc-list cache export failed", ioe);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the index (and reflect-config.json) of the test classpath into test-classes. Builds on the scan snapshot the
+ * generate goal left in target/, so only test-classes and the test-scoped jars are scanned. Without a usable snapshot
+ * the main classes and all jars are scanned as well.
+ */
+@Mojo(
+    name = "generate-test",
+    defaultPhase = LifecyclePhase.PROCESS_TEST_CLASSES,
+    threadSafe = true,
+    requiresDependencyResolution = ResolutionScope.TEST
+)
+public final class GenerateTestIndexMojo extends CodegenConcreteClassPlugin {
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try {
+            final Path testClassesDir = classesDir();
+            if (null == testClassesDir)
+                return;
+
+            final ScanOptions options = scanOptions();
+            final ScanEngine engine = new ScanEngine(options, this::log);
+            final List<Path> jars = jars();
+            final Path mainClassesDir = Path.of(project().getBuild().getOutputDirectory());
+            final ScanSnapshot.Loaded main = null == scanSnapshotFile() ? null : ScanSnapshot.read(scanSnapshotFile(), options, mainClassesDir, jars, this::log);
+            final HierarchyIndex index;
+            if (null != main) {
+                final List<Path> testJars = jars.stream().filter(jar -> !main.jars().contains(jar.toString())).toList();
+                log("[codegen-svc-list] Using the main scan snapshot, scanning " + testJars.size() + " test-scoped artifacts", 'I');
+                index = engine.run(testClassesDir, testJars, main.scan(), writers(testClassesDir));
+            } else {
+                log("[codegen-svc-list] No usable scan snapshot of the main classes, scanning all artifacts", 'I');
+                final ScanResult mainScan = Files.isDirectory(mainClassesDir) ? engine.scan(mainClassesDir, List.of()) : null;
+                index = engine.run(testClassesDir, jars, mainScan, writers(testClassesDir));
+            }
+            publish(HierarchyGraph.TEST_CONTEXT_KEY, index);
+            getLog().info(index.summary());
+        } catch (Exception ex) {
+            log("Exception occurred: " + ex, 'E');
+            throw new MojoExecutionException("codegen-svc-list test index failed", ex);
+        }
+    }
+
+    @Override
+    String outputDirectory() {
+        return project().getBuild().getTestOutputDirectory();
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isConcrete;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toDotted;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toInternal;
+
+/**
+ * Read-only queries over the class headers of one scan. With publishGraph they are put into the context of the
+ * module's MavenProject (see {@link #CONTEXT_KEY}), so later plugins of the same module don't scan the classpath again.
+ * Other modules of the reactor can't see it. Names are dotted. Classes of jars served from a precompiled index were
+ * never read and are unknown here.
+ * Other plugins have their own class loader, so the context holds {@link #queries()}, which only uses JDK types:
+ * <pre>
+ * var graph = (Map&lt;String, Function&lt;String, List&lt;String&gt;&gt;&gt;) project.getContextValue("codegen-svc-list.graph");
+ * List&lt;String&gt; services = graph.get("concreteSubtypes").apply("org.abc.Service");
+ * </pre>
+ */
+public final class HierarchyGraph {
+    public static final String CONTEXT_KEY = "codegen-svc-list.graph";
+    public static final String TEST_CONTEXT_KEY = "codegen-svc-list.test-graph";
+
+    private final Map<String, ClassHeader> headers;
+    private volatile Map<String, List<String>> children; // Direct subtypes, built with the first subtype query
+
+    HierarchyGraph(final Map<String, ClassHeader> headers) {
+        this.headers = headers;
+    }
+
+    public boolean contains(final String className) {
+        return headers.containsKey(toInternal(className));
+    }
+
+    public int size() {
+        return headers.size();
+    }
+
+    /**
+     * All known classes and interfaces extending or implementing className, directly or not, sorted.
+     */
+    public List<String> subtypes(final String className) {
+        return collect(className, false);
+    }
+
+    /**
+     * Like {@link #subtypes(String)}, without interfaces and abstract classes.
+     */
+    public List<String> concreteSubtypes(final String className) {
+        return collect(className, true);
+    }
+
+    /**
+     * Superclasses of className, nearest first and ending with the first one without a header (usually
+     * java.lang.Object). Empty for unknown classes and interfaces.
+     */
+    public List<String> superclassChain(final String className) {
+        final List<String> chain = new ArrayList<>();
+        ClassHeader header = headers.get(toInternal(className));
+        while (null != header && !header.isInterface() && null != header.superInternalName()) {
+            final String superName = header.superInternalName();
+            if (chain.contains(toDotted(superName)))
+                break; // Broken jars can contain cycles
+            chain.add(toDotted(superName));
+            header = headers.get(superName);
+        }
+        return chain;
+    }
+
+    /**
+     * The queries as JDK functions: "subtypes", "concreteSubtypes" and "superclassChain".
+     */
+    public Map<String, Function<String, List<String>>> queries() {
+        return Map.of(
+            "subtypes", this::subtypes,
+            "concreteSubtypes", this::concreteSubtypes,
+            "superclassChain", this::superclassChain
+        );
+    }
+
+    private List<String> collect(final String className, final boolean concreteOnly) {
+        final Map<String, List<String>> direct = children();
+        final Set<String> seen = new HashSet<>();
+        final Set<String> found = new TreeSet<>();
+        final Deque<String> pending = new ArrayDeque<>(List.of(toInternal(className)));
+        while (!pending.isEmpty()) {
+            for (String child : direct.getOrDefault(pending.poll(), List.of())) {
+                if (!seen.add(child))
+                    continue;
+                pending.add(child);
+                if (!concreteOnly || isConcrete(headers.get(child)))
+                    found.add(toDotted(child));
+            }
+        }
+        return List.copyOf(found);
+    }
+
+    private Map<String, List<String>> children() {
+        Map<String, List<String>> direct = children;
+        if (null == direct) {
+            direct = new HashMap<>();
+            for (var e : headers.entrySet()) {
+                final ClassHeader header = e.getValue();
+                if (null != header.superInternalName())
+                    direct.computeIfAbsent(header.superInternalName(), k -> new ArrayList<>()).add(e.getKey());
+                for (String itf : header.interfaces())
+                    direct.computeIfAbsent(itf, k -> new ArrayList<>()).add(e.getKey());
+            }
+            children = direct;
+        }
+        return direct;
+    }
+}
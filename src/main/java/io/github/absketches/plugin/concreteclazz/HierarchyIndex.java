@@ -0,0 +1,60 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolved index: implementations per requested base / annotation (internal names, in configuration order)
+ * and the dotted class names that should be registered for reflection.
+ */
+public final class HierarchyIndex {
+    private final Map<String, Set<String>> implementations;
+    private final Set<String> reflectedClasses;
+    final ScanResult scan;
+    final List<ScanReport.Resolution> resolutions;
+
+    HierarchyIndex(final Map<String, Set<String>> implementations, final Set<String> reflectedClasses, final ScanResult scan, final List<ScanReport.Resolution> resolutions) {
+        this.implementations = implementations;
+        this.reflectedClasses = reflectedClasses;
+        this.scan = scan;
+        this.resolutions = resolutions;
+    }
+
+    public Map<String, Set<String>> implementations() {
+        return implementations;
+    }
+
+    public Set<String> reflectedClasses() {
+        return reflectedClasses;
+    }
+
+    // Query view of the scanned headers, e.g. for other plugins of the build
+    public HierarchyGraph graph() {
+        return new HierarchyGraph(scan.headers);
+    }
+
+    public int headerCount() {
+        return scan.headerCount();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - scan.startedNanos;
+    }
+
+    // One liner with header count, scanned artifacts and phase timings
+    public String summary() {
+        final long precompiled = scan.artifactStats.stream().filter(a -> a.precompiled).count();
+        final long cached = scan.artifactStats.stream().filter(a -> a.cached).count();
+        final String timings = scan.phases.entrySet().stream()
+            .map(e -> e.getKey() + " " + e.getValue() / 1_000_000 + " ms")
+            .collect(Collectors.joining(", "));
+        return "[codegen-svc-list] " + scan.headerCount() + " headers from " + scan.artifactStats.size() + " artifacts (" + precompiled
+            + " precompiled" + (cached > 0 ? ", " + cached + " cached" : "") + ") in " + elapsedNanos() / 1_000_000 + " ms" + (timings.isEmpty() ? "" : ": " + timings);
+    }
+
+    void phase(final String name, final long nanos) {
+        scan.phases.merge(name, nanos, Long::sum);
+    }
+}
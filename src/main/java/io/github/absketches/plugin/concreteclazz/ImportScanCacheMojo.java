@@ -0,0 +1,37 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Restores a bundle written by the export-cache goal into the scan cache directory before the build.
+ * A missing bundle (first pipeline run) is not an error.
+ */
+@Mojo(name = "import-cache", threadSafe = true, aggregator = true)
+public final class ImportScanCacheMojo extends AbstractMojo {
+
+    @Parameter(property = "codegenConcreteClass.cacheDir", required = true)
+    private File cacheDir;
+
+    @Parameter(property = "codegenConcreteClass.cacheBundle", required = true)
+    private File cacheBundle;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (!cacheBundle.isFile()) {
+            getLog().info("[codegen-svc-list] No cache bundle at " + cacheBundle + " (skipping)");
+            return;
+        }
+        try {
+            final int added = ScanCache.importBundle(cacheBundle.toPath(), cacheDir.toPath());
+            getLog().info("[codegen-svc-list] Imported " + added + " cached jar scans into " + cacheDir);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException("codegen-svc-list cache import failed", ioe);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local daemon which keeps per-jar scan results in memory for concurrent builds on one machine.
+ * Builds reach it over a Unix domain socket (see {@link ScanOptions#daemonSocket}), one request per connection:
+ * the jar path plus the options which change its contribution or how it is scanned, answered with a serialized
+ * {@link ScanCache.Entry}. Misses are scanned by one engine per distinct options, whose pipeline is reused.
+ * Entries are keyed by path, size, modification time and options, and evicted least recently used once the serialized
+ * bytes exceed maxBytes. Only the user running the daemon can connect to the socket. Start it with
+ * <pre>
+ * java -cp codegen-concrete-class.jar:type-map.jar io.github.absketches.plugin.concreteclazz.IndexDaemon \
+ *   --socket=/tmp/codegen-svc-list.sock --maxBytes=536870912
+ * </pre>
+ */
+public final class IndexDaemon implements AutoCloseable {
+    private static final int MAGIC = 0x43435344; // "CCSD"
+    private static final int VERSION = 4;
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+
+    private final Path socket;
+    private final long maxBytes;
+    private final ScanLog log;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true); // LRU by access
+    private final Map<String, ScanEngine> engines = new ConcurrentHashMap<>(); // One per client options, idle pipelines hold no threads
+    private long bytes;
+    private long hits;
+    private long misses;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+
+    public IndexDaemon(final Path socket, final long maxBytes, final ScanLog log) {
+        this.socket = socket;
+        this.maxBytes = maxBytes;
+        this.log = log;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> opts = ConcreteClassIndexCli.parseArgs(args);
+        if (null == opts || !opts.containsKey("socket")) {
+            System.err.println("Usage: --socket=<path> [--maxBytes=536870912] [--verbose]");
+            System.exit(2);
+            return;
+        }
+        final boolean verbose = Boolean.parseBoolean(opts.getOrDefault("verbose", "false"));
+        final IndexDaemon daemon = new IndexDaemon(Path.of(opts.get("socket")), Long.parseLong(opts.getOrDefault("maxBytes", "536870912")), (msg, level) -> {
+            if ('E' == level || 'W' == level || verbose)
+                System.err.println(msg);
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        daemon.start();
+        System.err.println("[codegen-svc-list] Index daemon listening on " + daemon.socket);
+        daemon.acceptor.join();
+    }
+
+    /**
+     * Bind the socket (replacing a stale socket file) and serve requests on background threads. Requests make the
+     * daemon read any jar it can, so only the owner may connect: the socket is bound in a private directory, made
+     * owner-only and then moved in place.
+     */
+    public synchronized IndexDaemon start() throws IOException {
+        Files.deleteIfExists(socket);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        final Path parent = socket.toAbsolutePath().getParent();
+        if (!Files.getFileStore(parent).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            server.close();
+            throw new IOException("Can't restrict the daemon socket to its owner on " + parent);
+        }
+        final Path privateDir = Files.createTempDirectory(parent, ".ccsd", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        try {
+            final Path bound = privateDir.resolve("d.sock");
+            server.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            server.close();
+            throw ioe;
+        } finally {
+            Files.deleteIfExists(privateDir.resolve("d.sock"));
+            Files.delete(privateDir);
+        }
+        acceptor = Thread.ofPlatform().name("codegen-svc-list-daemon").daemon(true).start(this::acceptLoop);
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (null != server)
+                server.close();
+            Files.deleteIfExists(socket);
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Closing index daemon failed: " + ioe, 'W');
+        }
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    int engines() {
+        return engines.size();
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                final SocketChannel client = server.accept();
+                Thread.ofVirtual().name("codegen-svc-list-daemon-request").start(() -> serve(client));
+            } catch (ClosedChannelException closed) {
+                return;
+            } catch (IOException ioe) {
+                log.log("[codegen-svc-list] Index daemon accept failed: " + ioe, 'W');
+            }
+        }
+    }
+
+    private void serve(final SocketChannel client) {
+        try (client;
+             DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+             DataOutputStream out = new DataOutputStream(Channels.newOutputStream(client))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unknown request");
+            final Path jar = Path.of(in.readUTF());
+            final ScanOptions options = new ScanOptions()
+                .bases(in.readUTF())
+                .annotations(in.readUTF())
+                .usePrecompiledLists(in.readBoolean())
+                .skipProvidedReflectConfig(in.readBoolean())
+                .release(in.readInt())
+                .excludeSynthetic(in.readBoolean())
+                .excludeNonPublicNested(in.readBoolean())
+                .pipelineThreshold(in.readInt())
+                .scanThreads(in.readInt())
+                .maxBytesInFlight(in.readLong());
+            try {
+                final byte[] entry = lookup(jar, options);
+                out.writeByte(OK);
+                out.writeInt(entry.length);
+                out.write(entry);
+            } catch (IOException | RuntimeException failure) {
+                out.writeByte(FAILED);
+                out.writeUTF(String.valueOf(failure));
+            }
+            out.flush();
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Index daemon request failed: " + ioe, 'W');
+        }
+    }
+
+    private byte[] lookup(final Path jar, final ScanOptions options) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(jar, BasicFileAttributes.class);
+        final String scanned = String.join("|", String.join(",", options.bases()), String.join(",", options.annotations()), String.valueOf(options.usePrecompiledLists()),
+            String.valueOf(options.skipProvidedReflectConfig()), String.valueOf(options.release()), String.valueOf(options.excludeSynthetic()), String.valueOf(options.excludeNonPublicNested()));
+        final String key = String.join("|", jar.toAbsolutePath().toString(), String.valueOf(attrs.size()), String.valueOf(attrs.lastModifiedTime().toMillis()), scanned);
+        synchronized (this) {
+            final byte[] cached = entries.get(key);
+            if (null != cached) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Scan outside the lock, concurrent misses on the same jar just scan twice
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            // Pipeline settings don't change the entry, only how the engine scans
+            final ScanEngine engine = engines.computeIfAbsent(String.join("|", scanned, String.valueOf(options.pipelineThreshold()), String.valueOf(options.scanThreads()),
+                String.valueOf(options.maxBytesInFlight())), k -> new ScanEngine(options, log));
+            ScanCache.writeEntry(out, engine.scanJar(jar));
+        }
+        final byte[] entry = buf.toByteArray();
+        final String state;
+        synchronized (this) {
+            final byte[] previous = entries.put(key, entry);
+            bytes += entry.length - (null == previous ? 0 : previous.length);
+            evict();
+            state = entries.size() + " entries, " + bytes + " bytes";
+        }
+        log.log("[codegen-svc-list] Index daemon scanned " + jar + " (" + state + ")", 'I');
+        return entry;
+    }
+
+    // Least recently used first, the newest entry always stays even if it alone exceeds maxBytes
+    private void evict() {
+        final Iterator<byte[]> it = entries.values().iterator();
+        while (bytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            bytes -= it.next().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Build side of the protocol.
+     */
+    static final class Client {
+        private final Path socket;
+
+        Client(final Path socket) {
+            this.socket = socket;
+        }
+
+        // Connect failures mean the daemon isn't running
+        SocketChannel connect() throws IOException {
+            if (!Files.exists(socket))
+                throw new IOException("No daemon socket at " + socket);
+            return SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        }
+
+        ScanCache.Entry fetch(final SocketChannel channel, final Path jar, final ScanOptions options) throws IOException {
+            try (channel;
+                 DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                 DataInputStream in = new DataInputStream(Channels.newInputStream(channel))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(jar.toAbsolutePath().toString());
+                out.writeUTF(dotted(options.bases()));
+                out.writeUTF(dotted(options.annotations()));
+                out.writeBoolean(options.usePrecompiledLists());
+                out.writeBoolean(options.skipProvidedReflectConfig());
+                out.writeInt(options.release());
+                out.writeBoolean(options.excludeSynthetic());
+                out.writeBoolean(options.excludeNonPublicNested());
+                out.writeInt(options.pipelineThreshold());
+                out.writeInt(options.scanThreads());
+                out.writeLong(options.maxBytesInFlight());
+                out.flush();
+
+                if (in.readByte() != OK)
+                    throw new IOException("Index daemon failed: " + in.readUTF());
+                final byte[] entry = in.readNBytes(in.readInt());
+                return ScanCache.readEntry(new DataInputStream(new ByteArrayInputStream(entry)));
+            }
+        }
+
+        private static String dotted(final List<String> internalNames) {
+            return String.join(",", internalNames.stream().map(ClassFileUtils::toDotted).toList());
+        }
+    }
+}
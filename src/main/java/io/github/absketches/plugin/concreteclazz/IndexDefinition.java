@@ -0,0 +1,185 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.parseBaseClasses;
+
+/**
+ * One named index served from a shared scan: its own bases / annotations, output file, reflect-config inclusion and
+ * include / exclude filters (comma-separated dotted package or class prefixes of the implementations).
+ * The engine scans and resolves the union of all definitions once, {@link #writer} hands each writer its part.
+ * Configured in Maven as
+ * <pre>
+ * &lt;definitions&gt;
+ *   &lt;indexDefinition&gt;
+ *     &lt;name&gt;services&lt;/name&gt;
+ *     &lt;baseClasses&gt;org.abc.Service&lt;/baseClasses&gt;
+ *     &lt;excludes&gt;org.abc.internal&lt;/excludes&gt;
+ *   &lt;/indexDefinition&gt;
+ * &lt;/definitions&gt;
+ * </pre>
+ */
+public final class IndexDefinition {
+    private String name;
+    private String baseClasses;
+    private String annotationClasses;
+    private String outputFile;
+    private boolean reflectConfig = true;
+    private String includes;
+    private String excludes;
+    private List<String> includePrefixes; // Parsed with the first accepts()
+    private List<String> excludePrefixes;
+
+    public IndexDefinition name(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public IndexDefinition baseClasses(final String dottedNames) {
+        this.baseClasses = dottedNames;
+        return this;
+    }
+
+    public IndexDefinition annotationClasses(final String dottedNames) {
+        this.annotationClasses = dottedNames;
+        return this;
+    }
+
+    // Relative to the plugin's output dir, defaults to <name>.properties
+    public IndexDefinition outputFile(final String outputFile) {
+        this.outputFile = outputFile;
+        return this;
+    }
+
+    // Whether the implementations go into reflect-config.json / reachability-metadata.json
+    public IndexDefinition reflectConfig(final boolean reflectConfig) {
+        this.reflectConfig = reflectConfig;
+        return this;
+    }
+
+    // Only implementations starting with one of these dotted prefixes, empty keeps all
+    public IndexDefinition includes(final String dottedPrefixes) {
+        this.includes = dottedPrefixes;
+        this.includePrefixes = null;
+        return this;
+    }
+
+    // Implementations starting with one of these dotted prefixes are dropped
+    public IndexDefinition excludes(final String dottedPrefixes) {
+        this.excludes = dottedPrefixes;
+        this.excludePrefixes = null;
+        return this;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String outputFile() {
+        if (null != outputFile && !outputFile.isBlank())
+            return outputFile.trim();
+        if (null == name || name.isBlank())
+            throw new IllegalStateException("Index definition needs a name or an outputFile");
+        return name.trim() + ".properties";
+    }
+
+    List<String> bases() {
+        return parseBaseClasses(baseClasses);
+    }
+
+    List<String> annotations() {
+        return parseBaseClasses(annotationClasses);
+    }
+
+    // A prefix matches whole package segments only when it ends with a dot, e.g. org.abc.internal.
+    boolean accepts(final String internalName) {
+        if (null == includePrefixes) {
+            includePrefixes = parseBaseClasses(includes);
+            excludePrefixes = parseBaseClasses(excludes);
+        }
+        if (!includePrefixes.isEmpty() && includePrefixes.stream().noneMatch(internalName::startsWith))
+            return false;
+        return excludePrefixes.stream().noneMatch(internalName::startsWith);
+    }
+
+    /**
+     * The part of the full index this definition covers, reflected classes are empty unless reflectConfig is set.
+     */
+    HierarchyIndex select(final HierarchyIndex full) {
+        final Map<String, Set<String>> implementations = new LinkedHashMap<>();
+        final Set<String> keys = new LinkedHashSet<>(bases());
+        keys.addAll(annotations());
+        for (String key : keys) {
+            final Set<String> impls = new TreeSet<>();
+            for (String impl : full.implementations().getOrDefault(key, Set.of())) {
+                if (accepts(impl))
+                    impls.add(impl);
+            }
+            implementations.put(key, impls);
+        }
+        final Set<String> reflected = new LinkedHashSet<>();
+        if (reflectConfig) {
+            implementations.values().forEach(impls -> impls.stream().map(ClassFileUtils::toDotted).forEach(reflected::add));
+            reflected.retainAll(full.reflectedClasses());
+        }
+        return new HierarchyIndex(implementations, reflected, full.scan, full.resolutions);
+    }
+
+    /**
+     * Writer of this definition's part of the index.
+     */
+    public IndexWriter writer(final IndexWriter delegate) {
+        return new IndexWriter() {
+            @Override
+            public void write(final HierarchyIndex index) throws IOException {
+                delegate.write(select(index));
+            }
+
+            @Override
+            public String name() {
+                return delegate.name() + ":" + name;
+            }
+        };
+    }
+
+    /**
+     * Writer of the reflected classes of all definitions with reflectConfig, plus the forced reflectedClasses
+     * (internal names), whatever the definitions filter out. Implementations are keyed by the definitions' bases /
+     * annotations.
+     */
+    public static IndexWriter reflectionWriter(final List<IndexDefinition> definitions, final List<String> reflectedClasses, final IndexWriter delegate) {
+        return new IndexWriter() {
+            @Override
+            public void write(final HierarchyIndex index) throws IOException {
+                final Set<String> reflected = new LinkedHashSet<>();
+                final Map<String, Set<String>> implementations = new LinkedHashMap<>();
+                for (IndexDefinition definition : definitions) {
+                    if (!definition.reflectConfig)
+                        continue;
+                    final HierarchyIndex part = definition.select(index);
+                    part.implementations().forEach((key, impls) -> implementations.computeIfAbsent(key, k -> new TreeSet<>()).addAll(impls));
+                    reflected.addAll(part.reflectedClasses());
+                }
+                // Kept in index.reflectedClasses() unless a dependency already provides them
+                reflectedClasses.stream().map(ClassFileUtils::toDotted).filter(index.reflectedClasses()::contains).forEach(reflected::add);
+                delegate.write(new HierarchyIndex(implementations, reflected, index.scan, index.resolutions));
+            }
+
+            @Override
+            public String name() {
+                return delegate.name();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return null == name ? String.valueOf(outputFile) : name;
+    }
+}
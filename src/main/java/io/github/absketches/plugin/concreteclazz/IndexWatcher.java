@@ -0,0 +1,186 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatKey;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isInfoClass;
+
+/**
+ * Keeps the scan of one module in memory and updates the index while the classes directory changes.
+ * Dependencies are scanned and resolved once, each update only re-reads the changed class files and resolves the
+ * module's own classes again (super chains still walk the dependency headers). Writers run only when the index
+ * changed and skip outputs whose content is the same.
+ */
+public final class IndexWatcher {
+    private final ScanEngine engine;
+    private final Path classesDir;
+    private final List<Path> jars;
+    private final List<IndexWriter> writers;
+    private final ScanLog log;
+    private ScanResult scan;
+    private HierarchyIndex dependencies; // Implementations among dependency classes and precompiled indexes
+    private HierarchyIndex current;
+
+    public IndexWatcher(final ScanEngine engine, final Path classesDir, final List<Path> jars, final List<IndexWriter> writers, final ScanLog log) {
+        this.engine = engine;
+        this.classesDir = classesDir;
+        this.jars = jars;
+        this.writers = writers;
+        this.log = log;
+    }
+
+    /**
+     * Full scan and write, as the generate goal does.
+     */
+    public HierarchyIndex start() throws IOException {
+        scan = engine.scan(classesDir, jars);
+        dependencies = engine.resolve(scan, className -> !scan.ownClasses.contains(className));
+        current = resolveOwn();
+        write(current);
+        return current;
+    }
+
+    /**
+     * Blocks until interrupted. Events arriving within debounceMillis of each other (one compile) form one update,
+     * onUpdate receives a one liner per update.
+     */
+    public void watch(final long debounceMillis, final Consumer<String> onUpdate) throws IOException, InterruptedException {
+        watch(debounceMillis, onUpdate, () -> {});
+    }
+
+    /**
+     * Like {@link #watch(long, Consumer)}, onReady runs once every directory is registered: changes made after it
+     * are seen.
+     */
+    public void watch(final long debounceMillis, final Consumer<String> onUpdate, final Runnable onReady) throws IOException, InterruptedException {
+        try (WatchService ws = classesDir.getFileSystem().newWatchService()) {
+            register(ws, classesDir);
+            onReady.run();
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = ws.take();
+                final Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                do {
+                    final Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+                        final Path p = dir.resolve((Path) event.context());
+                        changed.add(p);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(p))
+                            register(ws, p);
+                    }
+                    key.reset();
+                } while (null != (key = ws.poll(debounceMillis, TimeUnit.MILLISECONDS)));
+
+                final long start = System.nanoTime();
+                if (overflow) {
+                    // Lost events, read the whole directory again
+                    changed.clear();
+                    changed.add(classesDir);
+                    scan.headers.keySet().removeAll(scan.ownClasses);
+                    scan.ownClasses.clear();
+                }
+                final boolean written = update(changed);
+                onUpdate.accept("[codegen-svc-list] " + changed.size() + " changes " + (written ? "updated the index" : "left the index unchanged")
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    /**
+     * Re-read the changed paths (class files, new or deleted directories) and write if the index changed.
+     */
+    boolean update(final Set<Path> changed) throws IOException {
+        for (Path p : changed) {
+            if (!p.startsWith(classesDir) || isInfoClass(p.getFileName().toString()))
+                continue;
+            final String internal = classesDir.relativize(p).toString().replace('\\', '/');
+            if (internal.endsWith(".class")) {
+                if (Files.isRegularFile(p))
+                    readOwn(p, formatKey(internal));
+                else
+                    removeOwn(formatKey(internal));
+            } else if (Files.isDirectory(p)) {
+                try (var stream = Files.walk(p)) {
+                    for (Path file : stream.filter(f -> f.getFileName().toString().endsWith(".class") && !isInfoClass(f.getFileName().toString()) && Files.isRegularFile(f)).toList())
+                        readOwn(file, formatKey(classesDir.relativize(file).toString().replace('\\', '/')));
+                }
+            } else if (Files.notExists(p)) {
+                // A deleted directory doesn't report its files
+                final String prefix = internal + "/";
+                for (String key : scan.ownClasses.stream().filter(k -> k.startsWith(prefix)).toList())
+                    removeOwn(key);
+            }
+        }
+
+        final HierarchyIndex index = resolveOwn();
+        if (index.implementations().equals(current.implementations()) && index.reflectedClasses().equals(current.reflectedClasses())) {
+            log.log("[codegen-svc-list] Index unchanged - skipping writers", 'I');
+            return false;
+        }
+        current = index;
+        write(index);
+        return true;
+    }
+
+    HierarchyIndex current() {
+        return current;
+    }
+
+    private HierarchyIndex resolveOwn() {
+        final HierarchyIndex own = engine.resolve(scan, scan.ownClasses::contains);
+        final Map<String, Set<String>> merged = new LinkedHashMap<>();
+        dependencies.implementations().forEach((base, impls) -> merged.put(base, new TreeSet<>(impls)));
+        own.implementations().forEach((base, impls) -> merged.computeIfAbsent(base, b -> new TreeSet<>()).addAll(impls));
+        return engine.toIndex(merged, scan, own.resolutions);
+    }
+
+    // A class file caught in the middle of a compile is read again with its next event
+    private void readOwn(final Path classFile, final String key) {
+        try {
+            final ClassHeader header = engine.readClass(classFile);
+            if (engine.dropped(header)) {
+                removeOwn(key);
+                return;
+            }
+            scan.headers.put(key, header);
+            scan.ownClasses.add(key);
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Could not read " + classFile + ": " + ioe, 'W');
+        }
+    }
+
+    private void removeOwn(final String key) {
+        if (scan.ownClasses.remove(key))
+            scan.headers.remove(key);
+    }
+
+    private void write(final HierarchyIndex index) throws IOException {
+        for (IndexWriter writer : writers)
+            writer.write(index);
+    }
+
+    private static void register(final WatchService ws, final Path root) throws IOException {
+        try (var stream = Files.walk(root)) {
+            for (Path dir : stream.filter(Files::isDirectory).toList())
+                dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+
+/**
+ * Writes a resolved {@link HierarchyIndex} somewhere, e.g. the services.properties index or reflect-config.json.
+ */
+@FunctionalInterface
+public interface IndexWriter {
+
+    void write(HierarchyIndex index) throws IOException;
+
+    // Phase name in the summary line
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
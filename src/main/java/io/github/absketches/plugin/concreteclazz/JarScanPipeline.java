@@ -0,0 +1,120 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.classKey;
+
+/**
+ * Pipelined header scan for large jars.
+ * The calling thread walks the class entries in central-directory order, a pool of workers inflates and parses them,
+ * and the results are collected in entry order so first-wins semantics match the sequential scan.
+ * One pipeline is shared by all jars of an engine: jars scanned in parallel use the same workers, and the compressed
+ * bytes of their submitted but not yet parsed entries share one maxBytesInFlight budget. Idle workers time out, so
+ * an unused pipeline holds no threads.
+ */
+final class JarScanPipeline {
+    private final ThreadPoolExecutor workers;
+    private final Semaphore inFlight;
+    private final int budget;
+
+    private record Pending(String name, Future<ClassHeader> header, int cost) {}
+
+    JarScanPipeline(final int threads, final long maxBytesInFlight) {
+        this.budget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytesInFlight));
+        this.inFlight = new Semaphore(budget);
+        this.workers = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "codegen-svc-list-scan");
+            t.setDaemon(true);
+            return t;
+        });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    void scan(final JarFile jf, final List<JarEntry> classEntries, final Set<String> annotations, final boolean nesting, final Map<String, ClassHeader> out) throws IOException {
+        final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        try {
+            for (JarEntry e : classEntries) {
+                final int cost = cost(e, budget);
+                inFlight.acquire(cost);
+                pending.add(new Pending(e.getName(), workers.submit(() -> {
+                    try (InputStream in = jf.getInputStream(e)) {
+                        return ClassHeader.read(in, annotations, nesting);
+                    } finally {
+                        inFlight.release(cost);
+                    }
+                }), cost));
+
+                // Merge whatever finished at the head while the reader keeps submitting
+                while (!pending.isEmpty() && pending.peekFirst().header().isDone())
+                    collect(pending.pollFirst(), out);
+            }
+            while (!pending.isEmpty())
+                collect(pending.pollFirst(), out);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning " + jf.getName());
+        } finally {
+            abandon(pending);
+        }
+    }
+
+    // Budget bytes currently free, all of it once no scan is running
+    int availableBytes() {
+        return inFlight.availablePermits();
+    }
+
+    int largestWorkerCount() {
+        return workers.getLargestPoolSize();
+    }
+
+    // After a failure: entries that never started give their bytes back, running ones finish before the jar is closed
+    private void abandon(final ArrayDeque<Pending> pending) {
+        for (Pending p : pending) {
+            if (p.header().cancel(false))
+                inFlight.release(p.cost());
+        }
+        for (Pending p : pending) {
+            if (!p.header().isCancelled()) {
+                try {
+                    p.header().get();
+                } catch (ExecutionException | CancellationException ignored) {
+                    // The first failure is already on its way to the caller
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void collect(final Pending p, final Map<String, ClassHeader> out) throws IOException, InterruptedException {
+        try {
+            out.putIfAbsent(classKey(p.name()), p.header().get());
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException ioe)
+                throw ioe;
+            throw new IOException("Failed to read " + p.name(), ee.getCause());
+        }
+    }
+
+    // Compressed size is what the reader pulls from disk, clamp so a single huge entry can't stall the pipeline
+    private static int cost(final JarEntry e, final int budget) {
+        final long size = e.getCompressedSize() > 0 ? e.getCompressedSize() : e.getSize();
+        return (int) Math.max(1, Math.min(budget, size));
+    }
+}
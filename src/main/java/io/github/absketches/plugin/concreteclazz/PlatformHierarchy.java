@@ -0,0 +1,218 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatKey;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isInfoClass;
+
+/**
+ * Headers of the JDK's own classes, so super chains and interfaces through platform types (java.util.AbstractList,
+ * java.io.Closeable, ...) resolve without scanning the runtime image on every build. The snapshot is read once per
+ * target release, JDK version and vendor and stored in the snapshot directory. Only exported packages are read and final
+ * classes are left out, neither can be part of a user class's chain.
+ */
+final class PlatformHierarchy {
+    private static final Map<Path, CompletableFuture<Map<String, ClassHeader>>> LOADED = new ConcurrentHashMap<>(); // Modules of one reactor share it
+
+    private PlatformHierarchy() {}
+
+    /**
+     * The snapshot of the target release, built and stored if the directory has none yet. Empty if it can't be read.
+     * The running JDK's release is read from jrt:/, older ones from its lib/ct.sym (what javac --release compiles
+     * against). Releases the JDK has no data for fall back to the running JDK.
+     */
+    static Map<String, ClassHeader> load(final Path snapshotDir, final int release, final ScanLog log) {
+        final int feature = Runtime.version().feature();
+        final int target = release < feature && hasCtSymRelease(release) ? release : feature;
+        if (target != release)
+            log.log("[codegen-svc-list] No platform classes of release " + release + " in this JDK, resolving against release " + feature, 'W');
+        final Path file = snapshotDir.resolve(("platform-" + target + "-" + Runtime.version() + "-" + System.getProperty("java.vendor", "unknown")).replaceAll("[^A-Za-z0-9.+_-]", "_") + ".snapshot");
+        // Loaded outside the map's locks: other modules wait on the future of their key only
+        final CompletableFuture<Map<String, ClassHeader>> loading = new CompletableFuture<>();
+        final CompletableFuture<Map<String, ClassHeader>> loaded = LOADED.putIfAbsent(file.toAbsolutePath(), loading);
+        if (null != loaded)
+            return loaded.join();
+        final Map<String, ClassHeader> headers = loadFile(file.toAbsolutePath(), target == feature ? -1 : target, log);
+        loading.complete(headers);
+        return headers;
+    }
+
+    // Never throws, so every waiting module gets its headers. Release -1 is the running JDK.
+    private static Map<String, ClassHeader> loadFile(final Path file, final int release, final ScanLog log) {
+        try {
+            if (Files.isRegularFile(file))
+                return read(file);
+        } catch (IOException | RuntimeException ex) {
+            log.log("[codegen-svc-list] Ignoring unreadable platform snapshot " + file + ": " + ex, 'W');
+        }
+        try {
+            final long start = System.nanoTime();
+            final Map<String, ClassHeader> headers = release < 0 ? readRuntimeImage() : readCtSym(release);
+            write(file, headers);
+            log.log("[codegen-svc-list] Stored platform snapshot of " + headers.size() + " classes in " + (System.nanoTime() - start) / 1_000_000 + " ms: " + file, 'I');
+            return headers;
+        } catch (IOException | RuntimeException ex) {
+            log.log("[codegen-svc-list] No platform snapshot, chains through JDK classes won't resolve: " + ex, 'W');
+            return Map.of();
+        }
+    }
+
+    /**
+     * Lookup view of the scanned headers that falls back to the platform headers. Iteration only covers the scanned ones.
+     */
+    static Map<String, ClassHeader> over(final Map<String, ClassHeader> scanned, final Map<String, ClassHeader> platform) {
+        if (platform.isEmpty())
+            return scanned;
+        return new AbstractMap<>() {
+            @Override
+            public ClassHeader get(final Object key) {
+                final ClassHeader header = scanned.get(key);
+                return null != header ? header : platform.get(key);
+            }
+
+            @Override
+            public boolean containsKey(final Object key) {
+                return scanned.containsKey(key) || platform.containsKey(key);
+            }
+
+            @Override
+            public Set<Entry<String, ClassHeader>> entrySet() {
+                return scanned.entrySet();
+            }
+        };
+    }
+
+    /**
+     * Headers of the packages the system modules export to everyone, other packages can't be extended by user code.
+     */
+    static Map<String, ClassHeader> readRuntimeImage() throws IOException {
+        final Map<String, ClassHeader> headers = new ConcurrentHashMap<>();
+        final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        final List<Path> packageDirs = new ArrayList<>();
+        for (ModuleReference module : ModuleFinder.ofSystem().findAll()) {
+            for (ModuleDescriptor.Exports exports : module.descriptor().exports()) {
+                final Path dir = jrt.getPath("/modules", module.descriptor().name(), exports.source().replace('.', '/'));
+                if (!exports.isQualified() && Files.isDirectory(dir))
+                    packageDirs.add(dir);
+            }
+        }
+        try {
+            packageDirs.parallelStream().forEach(dir -> readPackage(dir, headers));
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+        return new HashMap<>(headers);
+    }
+
+    // /modules/<module>/<package path>/<Name>.class, sub packages are exported on their own
+    private static void readPackage(final Path dir, final Map<String, ClassHeader> headers) {
+        try (var stream = Files.list(dir)) {
+            for (Path p : stream.filter(p -> p.getFileName().toString().endsWith(".class") && !isInfoClass(p.getFileName().toString())).toList()) {
+                try (InputStream in = Files.newInputStream(p)) {
+                    final ClassHeader header = ClassHeader.read(in);
+                    if (!header.isFinal())
+                        headers.put(formatKey(p.subpath(2, p.getNameCount()).toString()), header);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Headers of an older release from lib/ct.sym. Entries are &lt;releases&gt;/&lt;module&gt;/&lt;package path&gt;/&lt;Name&gt;.sig,
+     * the first directory lists every release (one base-36 digit each) the signature is valid for.
+     */
+    static Map<String, ClassHeader> readCtSym(final int release) throws IOException {
+        final String digit = releaseDigit(release);
+        final Map<String, ClassHeader> headers = new HashMap<>();
+        try (FileSystem ctSym = FileSystems.newFileSystem(ctSymPath())) {
+            for (Path releases : directories(ctSym.getPath("/"))) {
+                if (!releases.getFileName().toString().replace("/", "").contains(digit))
+                    continue;
+                try (var stream = Files.walk(releases)) {
+                    for (Path p : stream.filter(p -> p.getNameCount() > 2 && p.getFileName().toString().endsWith(".sig") && !p.getFileName().toString().endsWith("-info.sig")).toList()) {
+                        try (InputStream in = Files.newInputStream(p)) {
+                            final ClassHeader header = ClassHeader.read(in);
+                            final String sig = p.subpath(2, p.getNameCount()).toString();
+                            if (!header.isFinal())
+                                headers.put(sig.substring(0, sig.length() - ".sig".length()), header);
+                        }
+                    }
+                }
+            }
+        }
+        return headers;
+    }
+
+    private static boolean hasCtSymRelease(final int release) {
+        if (release < 0 || release >= 36 || !Files.isRegularFile(ctSymPath()))
+            return false;
+        try (FileSystem ctSym = FileSystems.newFileSystem(ctSymPath())) {
+            final String digit = releaseDigit(release);
+            return directories(ctSym.getPath("/")).stream().anyMatch(d -> d.getFileName().toString().replace("/", "").contains(digit));
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    private static Path ctSymPath() {
+        return Path.of(System.getProperty("java.home"), "lib", "ct.sym");
+    }
+
+    private static String releaseDigit(final int release) {
+        return Character.toString(Character.forDigit(release, 36)).toUpperCase();
+    }
+
+    private static List<Path> directories(final Path dir) throws IOException {
+        try (var stream = Files.list(dir)) {
+            return stream.filter(Files::isDirectory).toList();
+        }
+    }
+
+    // Same format as a scan cache entry with headers only
+    private static Map<String, ClassHeader> read(final Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return ScanCache.readEntry(in).headers;
+        }
+    }
+
+    private static void write(final Path file, final Map<String, ClassHeader> headers) throws IOException {
+        final Path parent = file.getParent();
+        Files.createDirectories(parent);
+        final ScanCache.Entry entry = new ScanCache.Entry();
+        entry.headers.putAll(headers);
+        final Path tmp = Files.createTempFile(parent, "platform", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                ScanCache.writeEntry(out, entry);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.INDEX_LISTING;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.addToIndexListing;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatResultMap;
+
+/**
+ * Writes the index as a .properties file: key = base class (dotted), value = comma-separated implementations.
+ * Skips writing if content didn't change and replaces the file atomically otherwise.
+ * Also names the file in the index.list next to it, so consumers find it without enumerating the jar.
+ */
+public final class PropertiesIndexWriter implements IndexWriter {
+    private final Path outputPath;
+    private final ScanLog log;
+
+    public PropertiesIndexWriter(final Path outputPath, final ScanLog log) {
+        this.outputPath = outputPath;
+        this.log = log;
+    }
+
+    @Override
+    public void write(final HierarchyIndex index) throws IOException {
+        final Path parent = outputPath.getParent();
+        if (null == parent || index.implementations().isEmpty())
+            return;
+
+        Files.createDirectories(parent);
+        final ScanEvents.OutputWrite event = new ScanEvents.OutputWrite();
+        event.begin();
+        event.path = outputPath.toString();
+        String newContent = formatResultMap(index.implementations());
+        String oldContent = Files.exists(outputPath) ? Files.readString(outputPath, StandardCharsets.UTF_8) : null;
+        writeListing(parent);
+        if (newContent.equals(oldContent)) {
+            log.log("[codegen-svc-list] Unchanged - skipping", 'I');
+            event.unchanged = true;
+            event.commit();
+            return;
+        }
+
+        final Path tmp = Files.createTempFile(parent, "services", ".tmp");
+        try {
+            Files.writeString(tmp, newContent, StandardCharsets.UTF_8);
+            log.log("[codegen-svc-list] Copying tmp file to actual destination", 'I');
+            Files.move(tmp, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.log("[codegen-svc-list] Wrote properties for base types = " + index.implementations().size(), 'I');
+            event.bytes = newContent.length();
+            event.commit();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void writeListing(final Path parent) throws IOException {
+        final Path listing = parent.resolve(INDEX_LISTING);
+        final String existing = Files.exists(listing) ? Files.readString(listing, StandardCharsets.UTF_8) : null;
+        final String content = addToIndexListing(existing, outputPath.getFileName().toString());
+        if (!content.equals(existing))
+            Files.writeString(listing, content, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String name() {
+        return "write";
+    }
+}
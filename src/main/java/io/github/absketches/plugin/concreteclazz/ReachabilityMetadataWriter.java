@@ -0,0 +1,84 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.mergeReachabilityJson;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toDotted;
+
+/**
+ * Merges the index into GraalVM's reachability-metadata.json. Each implementation is registered under the condition
+ * that its base (or annotation) type is reached, so images that never use a base don't keep its implementations.
+ * Forced reflectedClasses stay unconditional.
+ */
+public final class ReachabilityMetadataWriter implements IndexWriter {
+    private final Path metadataOutput;
+    private final ScanLog log;
+
+    public ReachabilityMetadataWriter(final Path metadataOutput, final ScanLog log) {
+        this.metadataOutput = metadataOutput;
+        this.log = log;
+    }
+
+    @Override
+    public void write(final HierarchyIndex index) throws IOException {
+        final Set<String> reflected = index.reflectedClasses(); // dotted, without entries provided by dependencies
+        final Map<String, Set<String>> typesByCondition = new LinkedHashMap<>();
+        final Set<String> conditional = new LinkedHashSet<>();
+        for (var e : index.implementations().entrySet()) {
+            final Set<String> types = new LinkedHashSet<>();
+            for (String impl : e.getValue()) {
+                final String dotted = toDotted(impl);
+                if (reflected.contains(dotted))
+                    types.add(dotted);
+            }
+            if (!types.isEmpty())
+                typesByCondition.put(toDotted(e.getKey()), types);
+            conditional.addAll(types);
+        }
+        final Set<String> unconditional = new LinkedHashSet<>(reflected);
+        unconditional.removeAll(conditional);
+        if (!unconditional.isEmpty())
+            typesByCondition.put("", unconditional);
+
+        if (typesByCondition.isEmpty()) {
+            log.log("[codegen-svc-list] Nothing to write", 'I');
+            return;
+        }
+
+        Files.createDirectories(metadataOutput.toAbsolutePath().getParent());
+        final String existing = Files.exists(metadataOutput) ? Files.readString(metadataOutput, StandardCharsets.UTF_8) : null;
+
+        final ScanEvents.JsonMerge merge = new ScanEvents.JsonMerge();
+        merge.begin();
+        final String json = mergeReachabilityJson(typesByCondition, existing);
+        merge.path = metadataOutput.toString();
+        merge.classes = reflected.size();
+        merge.commit();
+
+        final ScanEvents.OutputWrite write = new ScanEvents.OutputWrite();
+        write.begin();
+        write.path = metadataOutput.toString();
+        if (json.equals(existing)) {
+            log.log("[codegen-svc-list] Unchanged - skipping", 'I');
+            write.unchanged = true;
+            write.commit();
+            return;
+        }
+        Files.writeString(metadataOutput, json, StandardCharsets.UTF_8);
+        write.bytes = json.length();
+        write.commit();
+        log.log("[codegen-svc-list] Updated " + reflected.size() + " classes into " + metadataOutput, 'I');
+    }
+
+    @Override
+    public String name() {
+        return "reachability-metadata";
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.mergeJson;
+
+/**
+ * Merges the reflected classes of the index into a reflect-config.json, keeping the entries already in there.
+ * Skips writing if the merged content didn't change.
+ */
+public final class ReflectConfigWriter implements IndexWriter {
+    private final Path configOutput;
+    private final ScanLog log;
+
+    public ReflectConfigWriter(final Path configOutput, final ScanLog log) {
+        this.configOutput = configOutput;
+        this.log = log;
+    }
+
+    @Override
+    public void write(final HierarchyIndex index) throws IOException {
+        final Set<String> classNames = index.reflectedClasses();
+        if (null == classNames || classNames.isEmpty()) {
+            log.log("[codegen-svc-list] Nothing to write", 'I');
+            return;
+        }
+
+        Files.createDirectories(configOutput.getParent());
+
+        final String existing = Files.exists(configOutput) ? Files.readString(configOutput, StandardCharsets.UTF_8) : null;
+
+        final ScanEvents.JsonMerge merge = new ScanEvents.JsonMerge();
+        merge.begin();
+        final String json = mergeJson(classNames, existing);
+        merge.path = configOutput.toString();
+        merge.classes = classNames.size();
+        merge.commit();
+
+        final ScanEvents.OutputWrite write = new ScanEvents.OutputWrite();
+        write.begin();
+        write.path = configOutput.toString();
+        if (json.equals(existing)) {
+            log.log("[codegen-svc-list] Unchanged - skipping", 'I');
+            write.unchanged = true;
+            write.commit();
+            return;
+        }
+        Files.writeString(configOutput, json, StandardCharsets.UTF_8);
+        write.bytes = json.length();
+        write.commit();
+        log.log("[codegen-svc-list] Updated " + classNames.size() + " classes into " + configOutput, 'I');
+    }
+
+    @Override
+    public String name() {
+        return "reflect-config";
+    }
+}
@@ -0,0 +1,308 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed cache of what each dependency jar contributed to a scan: its header table, or its precompiled
+ * index, plus the reflect-config entries it provides.
+ * Entries are keyed by the SHA-256 of the jar contents and a fingerprint of the options that change the contribution
+ * (bases, annotations, precompiled / provided-reflection switches, release, exclusions), so paths and agents don't matter.
+ * The digest of each jar is remembered by path, size and modification time, so warm builds don't read the jars at all.
+ * The cache directory can be packed into a single gzip bundle and restored elsewhere, e.g. on CI agents.
+ */
+final class ScanCache {
+    private static final int ENTRY_MAGIC = 0x43435345; // "CCSE"
+    private static final int BUNDLE_MAGIC = 0x43435342; // "CCSB"
+    private static final int VERSION = 4; // 2: nested jars and BOOT-INF/WEB-INF classes roots, 3: multi-release jars, 4: nesting flags
+    private static final String SUFFIX = ".scan";
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}-[0-9a-f]{16}\\.scan");
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+    private static final String DIGESTS = "digests"; // Local to this machine, not part of bundles
+
+    private final Path dir;
+    private final String fingerprint;
+
+    /**
+     * What one jar contributed to a scan and what reading it cost.
+     */
+    static final class Entry {
+        final Map<String, ClassHeader> headers = new LinkedHashMap<>();
+        final Map<String, Set<String>> precompiled = new LinkedHashMap<>();
+        final Set<String> provided = new LinkedHashSet<>();
+        boolean precompiledHit;
+        String scanReason;
+        int entries;
+        int classesParsed;
+        long uncompressedBytes;
+
+        // First header wins like in the direct scan, precomputed implementations are unioned
+        void mergeInto(final ScanResult result) {
+            headers.forEach(result.headers::putIfAbsent);
+            precompiled.forEach((base, impls) -> result.precompiled.computeIfAbsent(base, k -> new TreeSet<>()).addAll(impls));
+            result.providedReflection.addAll(provided);
+        }
+
+        void copyStats(final ArtifactScanStats stats) {
+            stats.precompiled = precompiledHit;
+            stats.scanReason = scanReason;
+            stats.entries = entries;
+            stats.classesParsed = classesParsed;
+            stats.uncompressedBytes = uncompressedBytes;
+        }
+    }
+
+    ScanCache(final Path dir, final ScanOptions options) {
+        this.dir = dir;
+        this.fingerprint = fingerprint(options);
+    }
+
+    // Options which change what a jar contributes
+    static String fingerprint(final ScanOptions options) {
+        return sha256(String.join("|", "v" + VERSION, String.join(",", options.bases()), String.join(",", options.annotations()),
+            String.valueOf(options.usePrecompiledLists()), String.valueOf(options.skipProvidedReflectConfig()), String.valueOf(options.release()),
+            String.valueOf(options.excludeSynthetic()), String.valueOf(options.excludeNonPublicNested())).getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * SHA-256 of the jar contents, read from the digest remembered for its path, size and modification time if any.
+     */
+    String digest(final Path jar) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(jar, BasicFileAttributes.class);
+        final Path memo = dir.resolve(DIGESTS).resolve(sha256(String.join("|", jar.toAbsolutePath().toString(), String.valueOf(attrs.size()),
+            String.valueOf(attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS))).getBytes(StandardCharsets.UTF_8)));
+        if (Files.isRegularFile(memo)) {
+            final String remembered = Files.readString(memo, StandardCharsets.US_ASCII);
+            if (DIGEST.matcher(remembered).matches())
+                return remembered;
+        }
+        final String sha = sha256(jar);
+        try {
+            Files.createDirectories(memo.getParent());
+            final Path tmp = Files.createTempFile(memo.getParent(), "digest", ".tmp");
+            try {
+                Files.writeString(tmp, sha, StandardCharsets.US_ASCII);
+                Files.move(tmp, memo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ignored) {
+            // A digest that can't be remembered is only hashed again by the next build
+        }
+        return sha;
+    }
+
+    static String sha256(final Path file) throws IOException {
+        final MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buf = new byte[64 * 1024];
+            for (int n; (n = in.read(buf)) > 0; )
+                digest.update(buf, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(final byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is mandatory on every JVM", e);
+        }
+    }
+
+    // null on a miss, IOException on an unreadable entry
+    Entry load(final String jarSha) throws IOException {
+        final Path file = dir.resolve(jarSha + "-" + fingerprint + SUFFIX);
+        if (!Files.isRegularFile(file))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readEntry(in);
+        }
+    }
+
+    void store(final String jarSha, final Entry entry) throws IOException {
+        Files.createDirectories(dir);
+        final Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                writeEntry(out, entry);
+            }
+            Files.move(tmp, dir.resolve(jarSha + "-" + fingerprint + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Pack all cache entries of dir into one gzip bundle, returns the number of entries.
+     */
+    static int exportBundle(final Path dir, final Path bundle) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> list = Files.list(dir)) {
+                list.filter(p -> ENTRY_NAME.matcher(p.getFileName().toString()).matches()).sorted().forEach(files::add);
+            }
+        }
+
+        final Path parent = bundle.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path tmp = Files.createTempFile(parent, "bundle", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(BUNDLE_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(files.size());
+                for (Path file : files) {
+                    final byte[] bytes = Files.readAllBytes(file);
+                    out.writeUTF(file.getFileName().toString());
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            Files.move(tmp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return files.size();
+    }
+
+    /**
+     * Unpack a bundle into dir, entries which already exist are kept. Returns the number of entries added.
+     */
+    static int importBundle(final Path bundle, final Path dir) throws IOException {
+        Files.createDirectories(dir);
+        int added = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(bundle))))) {
+            if (in.readInt() != BUNDLE_MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a scan cache bundle (or an incompatible version): " + bundle);
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String name = in.readUTF();
+                final byte[] bytes = in.readNBytes(in.readInt());
+                if (!ENTRY_NAME.matcher(name).matches())
+                    throw new IOException("Invalid entry name in bundle: " + name);
+                final Path target = dir.resolve(name);
+                if (Files.exists(target))
+                    continue;
+                final Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+                try {
+                    Files.write(tmp, bytes);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    added++;
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        }
+        return added;
+    }
+
+    static void writeEntry(final DataOutputStream out, final Entry entry) throws IOException {
+        out.writeInt(ENTRY_MAGIC);
+        out.writeInt(VERSION);
+        out.writeBoolean(entry.precompiledHit);
+        writeNullable(out, entry.scanReason);
+        out.writeInt(entry.entries);
+        out.writeInt(entry.classesParsed);
+        out.writeLong(entry.uncompressedBytes);
+
+        out.writeInt(entry.precompiled.size());
+        for (var e : entry.precompiled.entrySet()) {
+            out.writeUTF(e.getKey());
+            writeStrings(out, e.getValue());
+        }
+        writeStrings(out, entry.provided);
+
+        out.writeInt(entry.headers.size());
+        for (var e : entry.headers.entrySet()) {
+            final ClassHeader h = e.getValue();
+            out.writeUTF(e.getKey());
+            out.writeInt(h.accessFlags());
+            writeNullable(out, h.superInternalName());
+            writeStrings(out, h.interfaces());
+            writeStrings(out, h.annotations());
+        }
+    }
+
+    static Entry readEntry(final DataInputStream in) throws IOException {
+        if (in.readInt() != ENTRY_MAGIC || in.readInt() != VERSION)
+            throw new IOException("Not a scan cache entry (or an incompatible version)");
+        final Entry entry = new Entry();
+        entry.precompiledHit = in.readBoolean();
+        entry.scanReason = readNullable(in);
+        entry.entries = in.readInt();
+        entry.classesParsed = in.readInt();
+        entry.uncompressedBytes = in.readLong();
+
+        final int bases = in.readInt();
+        for (int i = 0; i < bases; i++)
+            entry.precompiled.put(in.readUTF(), new TreeSet<>(readStrings(in)));
+        entry.provided.addAll(readStrings(in));
+
+        final int headers = in.readInt();
+        for (int i = 0; i < headers; i++) {
+            final String name = in.readUTF();
+            final int access = in.readInt();
+            final String superName = readNullable(in);
+            final List<String> interfaces = readStrings(in);
+            final List<String> annotations = readStrings(in);
+            entry.headers.put(name, new ClassHeader(access, superName, interfaces, annotations.isEmpty() ? Set.of() : Set.copyOf(annotations)));
+        }
+        return entry;
+    }
+
+    private static void writeNullable(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value)
+            out.writeUTF(value);
+    }
+
+    private static String readNullable(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(final DataOutputStream out, final Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String v : values)
+            out.writeUTF(v);
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count == 0)
+            return List.of();
+        final List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            values.add(in.readUTF());
+        return List.copyOf(values);
+    }
+}
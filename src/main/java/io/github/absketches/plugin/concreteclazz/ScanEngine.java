@@ -0,0 +1,567 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.classKey;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.formatKey;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isConcrete;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isImplementationOf;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isInfoClass;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isNestedJar;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isPrecompiledIndex;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isReflectConfig;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isSubclassOfBase;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.isVersioned;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.readIndexListing;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.readProperties;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.readReflectConfig;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.releaseOf;
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.toDotted;
+
+/**
+ * Build-tool independent scanning engine: reads class headers of a classes directory and dependency jars,
+ * resolves the implementations of the configured bases / annotations and hands the index to {@link IndexWriter}s.
+ * Used by the Maven goals and by {@link ConcreteClassIndexCli}, it doesn't depend on any Maven API.
+ */
+public final class ScanEngine {
+
+    public static final String outputDir = "META-INF/io/github/absketches/plugin/";
+
+    private final ScanOptions options;
+    private final ScanLog log;
+    private final Set<String> scanAnnotations; // Annotation types collected while reading headers
+    private final Set<String> allowedKeys; // Bases + annotations which can come precomputed from dependencies
+    private final ScanCache cache; // Per-jar results keyed by content, null when disabled
+    private volatile IndexDaemon.Client daemon; // null when disabled or not reachable
+    private final JarScanPipeline pipeline; // Workers and byte budget shared by all large jars, also when scanned in parallel
+    private Map<String, ClassHeader> platform; // JDK headers, loaded with the first resolve
+
+    public ScanEngine(final ScanOptions options, final ScanLog log) {
+        this.options = options;
+        this.log = log;
+        this.scanAnnotations = Set.copyOf(options.annotations());
+        this.allowedKeys = new HashSet<>(options.requestedKeys());
+        this.cache = null == options.cacheDir() ? null : new ScanCache(options.cacheDir(), options);
+        this.daemon = null == options.daemonSocket() ? null : new IndexDaemon.Client(options.daemonSocket());
+        this.pipeline = new JarScanPipeline(options.scanThreads(), options.maxBytesInFlight());
+    }
+
+    /**
+     * Scan, resolve and pass the index to every writer in order, each writer is timed as its own phase.
+     */
+    public HierarchyIndex run(final Path classesDir, final List<Path> jars, final List<IndexWriter> writers) throws IOException {
+        return run(classesDir, jars, null, writers);
+    }
+
+    /**
+     * Same as above on top of a previous scan, see {@link #scan(Path, List, ScanResult)}.
+     */
+    HierarchyIndex run(final Path classesDir, final List<Path> jars, final ScanResult previous, final List<IndexWriter> writers) throws IOException {
+        final HierarchyIndex index = resolve(scan(classesDir, jars, previous));
+        for (IndexWriter writer : writers) {
+            final long phase = System.nanoTime();
+            writer.write(index);
+            index.phase(writer.name(), System.nanoTime() - phase);
+        }
+        return index;
+    }
+
+    /**
+     * Read the headers of the own classes and of the jars (or their precompiled index).
+     * Nothing is scanned when neither bases nor annotations are configured.
+     */
+    public ScanResult scan(final Path classesDir, final List<Path> jars) throws IOException {
+        return scan(classesDir, jars, null);
+    }
+
+    /**
+     * Scan classesDir, then add the headers of previous (if any) and then the jars. The own classes win over the
+     * previous scan, which wins over the jars.
+     */
+    ScanResult scan(final Path classesDir, final List<Path> jars, final ScanResult previous) throws IOException {
+        final ScanResult result = new ScanResult();
+        if (allowedKeys.isEmpty())
+            return result;
+
+        // Scan own classes
+        long phase = System.nanoTime();
+        scanDirectory(classesDir, result.headers);
+        result.ownClasses.addAll(result.headers.keySet());
+        result.phases.put("classes", System.nanoTime() - phase);
+        if (null != previous) {
+            previous.headers.forEach(result.headers::putIfAbsent);
+            previous.precompiled.forEach((base, impls) -> result.precompiled.computeIfAbsent(base, k -> new TreeSet<>()).addAll(impls));
+            result.providedReflection.addAll(previous.providedReflection);
+        }
+
+        // Scan dependencies (use precomputed properties when available) - or always scan using usePrecompiledLists=false
+        phase = System.nanoTime();
+        final ScanHistory history = ScanHistory.load(options.historyFile(), log);
+        final int threads = Math.min(options.artifactThreads(), jars.size());
+        if (threads <= 1) {
+            for (Path jar : jars)
+                merge(processJar(jar), result, history);
+        } else {
+            scanInParallel(jars, threads, history, result);
+        }
+        result.phases.put("artifacts", System.nanoTime() - phase);
+        saveHistory(history);
+        log.log("[codegen-svc-list] headers size = " + result.headers.size(), 'I');
+        return result;
+    }
+
+    /**
+     * Collect the implementations of each configured base and annotation, plus the classes to register for reflection.
+     */
+    public HierarchyIndex resolve(final ScanResult scan) {
+        return resolve(scan, className -> true);
+    }
+
+    /**
+     * Like {@link #resolve(ScanResult)}, but only classes accepted by candidates (and the precompiled entries) can end
+     * up as implementations. Super chains still walk all headers.
+     */
+    HierarchyIndex resolve(final ScanResult scan, final Predicate<String> candidates) {
+        final Map<String, Set<String>> result = new LinkedHashMap<>();
+        final List<ScanReport.Resolution> resolutions = new ArrayList<>();
+
+        final long phase = System.nanoTime();
+        final Map<String, ClassHeader> headers = options.bases().isEmpty() ? scan.headers : PlatformHierarchy.over(scan.headers, platform());
+        for (String base : options.bases()) {
+            final Map<String, Boolean> cache = new HashMap<>(); // Cache already iterated paths
+            gatherConcreteClasses(base, scan, headers, candidates, result, cache, resolutions);
+        }
+        for (String annotation : options.annotations()) {
+            gatherAnnotatedClasses(annotation, scan, candidates, result, resolutions);
+        }
+        if (!allowedKeys.isEmpty())
+            scan.phases.put("resolve", System.nanoTime() - phase);
+        return toIndex(result, scan, resolutions);
+    }
+
+    // Adds the reflected classes to resolved implementations
+    HierarchyIndex toIndex(final Map<String, Set<String>> result, final ScanResult scan, final List<ScanReport.Resolution> resolutions) {
+        final Set<String> reflected = result.values().stream().flatMap(Set::stream).map(ClassFileUtils::toDotted).collect(Collectors.toCollection(LinkedHashSet::new));
+        options.reflectedClasses().stream().map(ClassFileUtils::toDotted).forEach(reflected::add);
+        if (options.skipProvidedReflectConfig() && reflected.removeAll(scan.providedReflection))
+            log.log("[codegen-svc-list] Skipped reflect-config entries already provided by dependencies", 'I');
+
+        return new HierarchyIndex(result, reflected, scan, resolutions);
+    }
+
+    ClassHeader readClass(final Path classFile) throws IOException {
+        try (InputStream in = Files.newInputStream(classFile)) {
+            return ClassHeader.read(in, scanAnnotations, options.readsNesting());
+        }
+    }
+
+    void scanDirectory(final Path root, final Map<String, ClassHeader> out) throws IOException {
+        final ScanEvents.DirectoryScan event = new ScanEvents.DirectoryScan();
+        event.begin();
+        final int before = out.size();
+        try (var stream = Files.walk(root)) {
+            var it = stream.filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().endsWith(".class") && !isInfoClass(p.getFileName().toString()))
+                .iterator();
+            while (it.hasNext()) {
+                Path p = it.next();
+                String internal = root.relativize(p).toString().replace('\\', '/');
+                ClassHeader header = readClass(p);
+                if (!dropped(header))
+                    out.put(formatKey(internal), header);
+            }
+        }
+        event.path = root.toString();
+        event.classesParsed = out.size() - before;
+        event.commit();
+    }
+
+    /**
+     * Artifacts start longest-processing-time first on the workers, the results are merged in the original order
+     * so first-wins semantics match the sequential scan.
+     */
+    private void scanInParallel(final List<Path> jars, final int threads, final ScanHistory history, final ScanResult result) throws IOException {
+        final ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "codegen-svc-list-artifact");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            final List<Future<Scanned>> futures = new ArrayList<>(Collections.nCopies(jars.size(), null));
+            for (int i : history.longestFirst(jars)) {
+                final Path jar = jars.get(i);
+                futures.set(i, workers.submit(() -> processJar(jar)));
+            }
+            for (Future<Scanned> future : futures)
+                merge(future.get(), result, history);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning artifacts");
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new IOException("Artifact scan failed", ee.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static void merge(final Scanned scanned, final ScanResult result, final ScanHistory history) {
+        if (null == scanned)
+            return;
+        scanned.entry().mergeInto(result);
+        result.artifactStats.add(scanned.stats());
+        history.record(scanned.stats().path, scanned.stats().nanos);
+    }
+
+    private void saveHistory(final ScanHistory history) {
+        try {
+            history.save();
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Could not write scan history: " + ioe, 'W');
+        }
+    }
+
+    private record Scanned(ArtifactScanStats stats, ScanCache.Entry entry) {}
+
+    // A broken jar is logged and skipped, so one bad dependency doesn't fail the whole index
+    private Scanned processJar(final Path jar) {
+        final ScanEvents.ArtifactScan event = new ScanEvents.ArtifactScan();
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            final ArtifactScanStats stats = new ArtifactScanStats(jar.toString());
+            final ScanCache.Entry entry = contribution(jar, stats);
+            stats.nanos = System.nanoTime() - start;
+            event.path = stats.path;
+            event.entries = stats.entries;
+            event.uncompressedBytes = stats.uncompressedBytes;
+            event.classesParsed = stats.classesParsed;
+            event.precompiled = stats.precompiled;
+            event.cached = stats.cached;
+            event.commit();
+            return new Scanned(stats, entry);
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Jar scan failed for " + jar + ": " + ioe, 'E');
+        }
+        return null;
+    }
+
+    ArtifactScanStats prepareToScanJar(final Path jar, final ScanResult into) throws IOException {
+        final ArtifactScanStats stats = new ArtifactScanStats(jar.toString());
+        contribution(jar, stats).mergeInto(into);
+        return stats;
+    }
+
+    // What the jar contributes, from the cache, the daemon or its own scan, without touching shared state
+    private ScanCache.Entry contribution(final Path jar, final ArtifactScanStats stats) throws IOException {
+        final String sha = null == cache ? null : cache.digest(jar);
+        ScanCache.Entry entry = null == sha ? null : loadCached(sha, jar);
+        if (null != entry) {
+            stats.cached = true;
+        } else {
+            entry = null == daemon ? null : fetchFromDaemon(jar);
+            if (null == entry)
+                entry = scanJar(jar);
+            if (null != sha)
+                storeCached(sha, jar, entry);
+        }
+        entry.copyStats(stats);
+        return entry;
+    }
+
+    // A broken cache entry is a miss, the jar is scanned and the entry replaced
+    private ScanCache.Entry loadCached(final String sha, final Path jar) {
+        try {
+            final ScanCache.Entry entry = cache.load(sha);
+            if (null != entry)
+                log.log("[codegen-svc-list] using cached scan of " + jar.getFileName(), 'I');
+            return entry;
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Ignoring unreadable cache entry for " + jar + ": " + ioe, 'W');
+            return null;
+        }
+    }
+
+    // A cache that can't be written only costs the next build a rescan
+    private void storeCached(final String sha, final Path jar, final ScanCache.Entry entry) {
+        try {
+            cache.store(sha, entry);
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Could not cache scan of " + jar + ": " + ioe, 'W');
+        }
+    }
+
+    // Falls back to the in-process scan, a daemon that isn't running is not asked again during this build
+    private ScanCache.Entry fetchFromDaemon(final Path jar) {
+        final IndexDaemon.Client client = daemon;
+        if (null == client)
+            return null;
+        final SocketChannel channel;
+        try {
+            channel = client.connect();
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Index daemon not reachable, scanning in-process: " + ioe, 'I');
+            daemon = null;
+            return null;
+        }
+        try {
+            final ScanCache.Entry entry = client.fetch(channel, jar, options);
+            log.log("[codegen-svc-list] using index daemon for " + jar.getFileName(), 'I');
+            return entry;
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Index daemon request for " + jar + " failed, scanning in-process: " + ioe, 'W');
+            return null;
+        }
+    }
+
+    ScanCache.Entry scanJar(final Path jar) throws IOException {
+        final ScanCache.Entry entry = new ScanCache.Entry();
+        final String name = String.valueOf(jar.getFileName());
+        try (JarFile jf = new JarFile(jar.toFile())) {
+            entry.entries = jf.size();
+            final boolean usePrecompiled = options.usePrecompiledLists() && !allowedKeys.isEmpty();
+
+            // Fast path: the listing this plugin writes names the precompiled files, found by central-directory lookup
+            final List<JarEntry> listed = usePrecompiled ? readIndexListing(jf, outputDir) : null;
+            final boolean listedRead = null != listed && !options.skipProvidedReflectConfig(); // Read once, complete or not
+            if (listedRead && readPrecompiled(jf, listed, name, entry))
+                return entry;
+
+            // One pass over the entries serves the precompiled files, provided reflect-configs and the class scan
+            final JarContents contents = new JarContents(jf, usePrecompiled && null == listed, options.release());
+            if (options.skipProvidedReflectConfig()) {
+                for (JarEntry e : contents.reflectConfigs)
+                    readReflectConfig(jf, e, entry.provided);
+            }
+            if (usePrecompiled) {
+                if (!listedRead && readPrecompiled(jf, null == listed ? contents.indexFiles : listed, name, entry))
+                    return entry;
+            } else {
+                entry.scanReason = options.usePrecompiledLists() ? "no requested bases" : "usePrecompiledLists disabled";
+            }
+
+            // Either no properties or incomplete -> scan classes into headers
+            scanHeadersInJar(jf, name, contents, entry);
+        }
+        return entry;
+    }
+
+    private boolean readPrecompiled(final JarFile jf, final List<JarEntry> files, final String name, final ScanCache.Entry entry) throws IOException {
+        final Set<String> matched = new HashSet<>();
+        if (readProperties(jf, files, entry.precompiled, allowedKeys, matched)) {
+            log.log("[codegen-svc-list] using precomputed properties from " + name, 'I');
+            entry.precompiledHit = true;
+            return true;
+        }
+        log.log("[codegen-svc-list] precomputed files missing entries for configured bases, will scan classes...", 'I');
+        entry.scanReason = matched.isEmpty() ? "no precompiled index" : "precompiled index incomplete";
+        return false;
+    }
+
+    /**
+     * What the header scan needs from one walk over the central directory. module-info / package-info are never
+     * inflated. Of multi-release jars only the highest version up to release replaces each class, other versioned copies
+     * are skipped, and plain jars ignore META-INF/versions like the JVM does.
+     */
+    private static final class JarContents {
+        final List<JarEntry> classes = new ArrayList<>();
+        final List<JarEntry> nestedJars = new ArrayList<>();
+        final List<JarEntry> indexFiles = new ArrayList<>();
+        final List<JarEntry> reflectConfigs = new ArrayList<>();
+
+        JarContents(final JarFile jf, final boolean collectIndexFiles, final int release) {
+            final boolean multiRelease = jf.isMultiRelease();
+            final Map<String, JarEntry> versioned = new LinkedHashMap<>(); // internal name -> selected versioned entry
+            for (Enumeration<JarEntry> en = jf.entries(); en.hasMoreElements(); ) {
+                JarEntry e = en.nextElement();
+                final String name = e.getName();
+                if (isVersioned(name)) {
+                    final int version = releaseOf(name);
+                    if (multiRelease && version > 0 && version <= release && name.endsWith(".class") && !isInfoClass(name)) {
+                        final JarEntry selected = versioned.get(classKey(name));
+                        if (null == selected || releaseOf(selected.getName()) < version)
+                            versioned.put(classKey(name), e);
+                    }
+                } else if (name.endsWith(".class")) {
+                    if (!isInfoClass(name))
+                        classes.add(e);
+                } else if (isNestedJar(name)) {
+                    nestedJars.add(e);
+                } else if (collectIndexFiles && isPrecompiledIndex(e, outputDir)) {
+                    indexFiles.add(e);
+                } else if (isReflectConfig(e)) {
+                    reflectConfigs.add(e);
+                }
+            }
+            if (!versioned.isEmpty()) {
+                // Versioned copies take the place of the base class, classes only present in a version are added
+                classes.replaceAll(e -> {
+                    final JarEntry selected = versioned.remove(classKey(e.getName()));
+                    return null == selected ? e : selected;
+                });
+                classes.addAll(versioned.values());
+            }
+        }
+    }
+
+    private void scanHeadersInJar(final JarFile jf, final String name, final JarContents contents, final ScanCache.Entry entry) throws IOException {
+        log.log("[codegen-svc-list] Scanning classes in " + name, 'I');
+        final List<JarEntry> classEntries = contents.classes;
+        final List<JarEntry> nestedJars = contents.nestedJars;
+        for (JarEntry e : classEntries)
+            entry.uncompressedBytes += Math.max(0, e.getSize());
+        entry.classesParsed = classEntries.size();
+
+        if (options.pipelineThreshold() > 0 && classEntries.size() >= options.pipelineThreshold()) {
+            log.log("[codegen-svc-list] Pipelined scan of " + classEntries.size() + " classes with " + options.scanThreads() + " shared workers", 'I');
+            pipeline.scan(jf, classEntries, scanAnnotations, options.readsNesting(), entry.headers);
+        } else {
+            for (JarEntry e : classEntries) {
+                try (InputStream in = jf.getInputStream(e)) {
+                    entry.headers.putIfAbsent(classKey(e.getName()), ClassHeader.read(in, scanAnnotations, options.readsNesting()));
+                }
+            }
+        }
+
+        // Outer classes win, nested jars follow in central-directory order
+        for (JarEntry e : nestedJars)
+            scanNestedJar(jf, e, entry);
+        entry.headers.values().removeIf(this::dropped);
+    }
+
+    /**
+     * Stream a nested jar (BOOT-INF/lib, WEB-INF/lib, lib) once from the outer jar, no temp files.
+     * STORED inner jars are read as-is, deflated ones are inflated once while their classes are parsed.
+     */
+    private void scanNestedJar(final JarFile outer, final JarEntry nested, final ScanCache.Entry entry) throws IOException {
+        final Map<String, ClassHeader> headers = new LinkedHashMap<>();
+        final Map<String, Integer> versions = new HashMap<>(); // Release of the parsed copy of each class
+        int classes = 0;
+        try (JarInputStream in = new JarInputStream(outer.getInputStream(nested), false)) {
+            final boolean multiRelease = null != in.getManifest() && "true".equalsIgnoreCase(in.getManifest().getMainAttributes().getValue("Multi-Release"));
+            for (JarEntry e; null != (e = in.getNextJarEntry()); ) {
+                final String name = e.getName();
+                if (e.isDirectory() || !name.endsWith(".class") || isInfoClass(name))
+                    continue;
+                final int version = releaseOf(name);
+                if (isVersioned(name) && (!multiRelease || version <= 0 || version > options.release()))
+                    continue;
+                // Entry order isn't fixed, a copy is only parsed if it's newer than the one already read
+                final String key = classKey(name);
+                final Integer parsed = versions.get(key);
+                if (null != parsed && parsed >= version)
+                    continue;
+                headers.put(key, ClassHeader.read(in, scanAnnotations, options.readsNesting()));
+                versions.put(key, version);
+                entry.uncompressedBytes += Math.max(0, e.getSize());
+                classes++;
+            }
+        }
+        headers.forEach(entry.headers::putIfAbsent);
+        entry.classesParsed += classes;
+        log.log("[codegen-svc-list] Scanned " + classes + " classes in nested " + nested.getName(), 'I');
+    }
+
+    /**
+     * Synthetic, anonymous and local classes can't be a superclass of anything listable, so they never enter headers.
+     */
+    boolean dropped(final ClassHeader header) {
+        return options.excludeSynthetic() && (header.isSynthetic() || header.isLocalOrAnonymous());
+    }
+
+    // Non-public nested classes stay in headers for the chains of their subclasses, but aren't listed themselves
+    private boolean listable(final ClassHeader header) {
+        return isConcrete(header) && !(options.excludeNonPublicNested() && header.isNonPublicNested());
+    }
+
+    private Map<String, ClassHeader> platform() {
+        if (null == platform)
+            platform = null == options.platformSnapshotDir() ? Map.of() : PlatformHierarchy.load(options.platformSnapshotDir(), options.release(), log);
+        return platform;
+    }
+
+    // headers also answers lookups of platform classes, iteration only covers the scanned ones
+    private void gatherConcreteClasses(final String base, final ScanResult scan, final Map<String, ClassHeader> headers, final Predicate<String> candidates, final Map<String, Set<String>> result, final Map<String, Boolean> cache, final List<ScanReport.Resolution> resolutions) {
+        final ScanEvents.BaseResolution event = new ScanEvents.BaseResolution();
+        event.begin();
+        final long start = System.nanoTime();
+
+        Set<String> services = precompiledOf(base, scan);
+
+        // Interface bases (or bases without a header to tell) walk interfaces and superclasses, class bases walk the super chain
+        final ClassHeader baseHeader = headers.get(base);
+        final boolean interfaceWalk = null == baseHeader || baseHeader.isInterface();
+
+        for (var e : headers.entrySet()) {
+            String className = e.getKey();
+            ClassHeader header = e.getValue();
+            if (!listable(header) || !candidates.test(className))
+                continue;
+
+            if (interfaceWalk ? isImplementationOf(className, headers, cache, base) : isSubclassOfBase(className, headers, platform(), cache, base)) {
+                services.add(className);
+            }
+        }
+
+        log.log("[codegen-svc-list] Implementations found for " + toDotted(base) + " = " + services.size(), 'I');
+        result.put(base, services);
+        commitResolution(event, base, headers.size(), services.size(), start, resolutions);
+    }
+
+    private void gatherAnnotatedClasses(final String annotation, final ScanResult scan, final Predicate<String> candidates, final Map<String, Set<String>> result, final List<ScanReport.Resolution> resolutions) {
+        final ScanEvents.BaseResolution event = new ScanEvents.BaseResolution();
+        event.begin();
+        final long start = System.nanoTime();
+
+        Set<String> annotated = precompiledOf(annotation, scan);
+
+        for (var e : scan.headers.entrySet()) {
+            ClassHeader header = e.getValue();
+            if (listable(header) && header.annotations().contains(annotation) && candidates.test(e.getKey()))
+                annotated.add(e.getKey());
+        }
+
+        log.log("[codegen-svc-list] Annotated classes found for " + toDotted(annotation) + " = " + annotated.size(), 'I');
+        result.put(annotation, annotated);
+        commitResolution(event, annotation, scan.headers.size(), annotated.size(), start, resolutions);
+    }
+
+    // Dependencies' precompiled entries seed the result, unless delta indexes leave them to the per-jar files
+    private Set<String> precompiledOf(final String key, final ScanResult scan) {
+        return new TreeSet<>(options.deltaIndex() ? Set.of() : scan.precompiled.getOrDefault(key, Set.of()));
+    }
+
+    private static void commitResolution(final ScanEvents.BaseResolution event, final String base, final int headerCount, final int implementations, final long start, final List<ScanReport.Resolution> resolutions) {
+        resolutions.add(new ScanReport.Resolution(base, implementations, System.nanoTime() - start));
+        event.base = toDotted(base);
+        event.headers = headerCount;
+        event.implementations = implementations;
+        event.commit();
+    }
+}
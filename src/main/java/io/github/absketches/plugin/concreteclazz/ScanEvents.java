@@ -0,0 +1,87 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of the generate goal, e.g. record a build with
+ * MAVEN_OPTS="-XX:StartFlightRecording=filename=codegen.jfr" and filter on the "Codegen Concrete Classes" category.
+ * Events are cheap no-ops while no recording is running.
+ */
+final class ScanEvents {
+    private static final String CATEGORY = "Codegen Concrete Classes";
+    private static final String PREFIX = "io.github.absketches.plugin.";
+
+    private ScanEvents() {}
+
+    @Name(PREFIX + "ArtifactScan")
+    @Label("Artifact Scan")
+    @Category(CATEGORY)
+    @Description("Scan of one dependency jar, either through its precompiled index or its class headers")
+    static final class ArtifactScan extends Event {
+        @Label("Path")
+        String path;
+        @Label("Entries")
+        int entries;
+        @Label("Uncompressed Bytes")
+        @Description("Declared uncompressed size of the parsed class entries")
+        @DataAmount
+        long uncompressedBytes;
+        @Label("Classes Parsed")
+        int classesParsed;
+        @Label("Precompiled")
+        boolean precompiled;
+        @Label("Cached")
+        boolean cached;
+    }
+
+    @Name(PREFIX + "DirectoryScan")
+    @Label("Directory Scan")
+    @Category(CATEGORY)
+    static final class DirectoryScan extends Event {
+        @Label("Path")
+        String path;
+        @Label("Classes Parsed")
+        int classesParsed;
+    }
+
+    @Name(PREFIX + "BaseResolution")
+    @Label("Base Resolution")
+    @Category(CATEGORY)
+    @Description("Hierarchy resolution of one configured base class, interface or annotation")
+    static final class BaseResolution extends Event {
+        @Label("Base")
+        String base;
+        @Label("Headers")
+        int headers;
+        @Label("Implementations")
+        int implementations;
+    }
+
+    @Name(PREFIX + "JsonMerge")
+    @Label("JSON Merge")
+    @Category(CATEGORY)
+    static final class JsonMerge extends Event {
+        @Label("Path")
+        String path;
+        @Label("Classes")
+        int classes;
+    }
+
+    @Name(PREFIX + "OutputWrite")
+    @Label("Output Write")
+    @Category(CATEGORY)
+    static final class OutputWrite extends Event {
+        @Label("Path")
+        String path;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Unchanged")
+        boolean unchanged;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Small properties file of the last scan time (nanos) per artifact path, used to start the most expensive artifacts
+ * first (longest-processing-time first). Artifacts without history are estimated from their file size, scaled by the
+ * nanos per byte of the artifacts that have one.
+ */
+final class ScanHistory {
+    private final Path file;
+    private final Properties costs = new Properties();
+
+    private ScanHistory(final Path file) {
+        this.file = file;
+    }
+
+    // A missing or unreadable file is an empty history
+    static ScanHistory load(final Path file, final ScanLog log) {
+        final ScanHistory history = new ScanHistory(file);
+        if (null != file && Files.isRegularFile(file)) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                history.costs.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                log.log("[codegen-svc-list] Ignoring unreadable scan history " + file + ": " + e, 'W');
+                history.costs.clear();
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Indexes into jars, most expensive first. Ties keep the original order.
+     */
+    int[] longestFirst(final List<Path> jars) {
+        final long[] sizes = new long[jars.size()];
+        final long[] known = new long[jars.size()];
+        long knownNanos = 0;
+        long knownBytes = 0;
+        for (int i = 0; i < jars.size(); i++) {
+            sizes[i] = sizeOf(jars.get(i));
+            known[i] = costOf(jars.get(i));
+            if (known[i] > 0) {
+                knownNanos += known[i];
+                knownBytes += sizes[i];
+            }
+        }
+
+        final double nanosPerByte = knownBytes > 0 ? (double) knownNanos / knownBytes : 1.0;
+        final double[] estimate = new double[jars.size()];
+        final List<Integer> order = new ArrayList<>(jars.size());
+        for (int i = 0; i < jars.size(); i++) {
+            estimate[i] = known[i] > 0 ? known[i] : sizes[i] * nanosPerByte;
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> estimate[i]).reversed());
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    void record(final String path, final long nanos) {
+        costs.setProperty(path, String.valueOf(nanos));
+    }
+
+    void save() throws IOException {
+        if (null == file)
+            return;
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path tmp = Files.createTempFile(parent, "history", ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                costs.store(out, "codegen-svc-list scan cost per artifact (nanos)");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private long costOf(final Path jar) {
+        try {
+            return Long.parseLong(costs.getProperty(jar.toString(), "0"));
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(final Path jar) {
+        try {
+            return Files.size(jar);
+        } catch (IOException ioe) {
+            return 0;
+        }
+    }
+}
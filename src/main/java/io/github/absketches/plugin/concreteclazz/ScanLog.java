@@ -0,0 +1,9 @@
+package io.github.absketches.plugin.concreteclazz;
+
+/**
+ * Log sink of the engine, level is one of 'E' (error), 'W' (warn), 'I' (info) or 'D' (debug).
+ */
+@FunctionalInterface
+public interface ScanLog {
+    void log(String msg, char level);
+}
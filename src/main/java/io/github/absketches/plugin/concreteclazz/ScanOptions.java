@@ -0,0 +1,210 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.github.absketches.plugin.concreteclazz.ClassFileUtils.parseBaseClasses;
+
+/**
+ * What the {@link ScanEngine} indexes and how it scans. Class names are given comma-separated in dot-notation.
+ */
+public final class ScanOptions {
+    private List<String> bases = List.of();
+    private List<String> annotations = List.of();
+    private List<String> reflectedClasses = List.of();
+    private boolean usePrecompiledLists = true;
+    private boolean skipProvidedReflectConfig;
+    private int pipelineThreshold = 5000;
+    private int scanThreads;
+    private long maxBytesInFlight = 64L << 20;
+    private Path cacheDir;
+    private Path daemonSocket;
+    private int artifactThreads = 1;
+    private Path historyFile;
+    private int release;
+    private Path platformSnapshotDir;
+    private boolean deltaIndex;
+    private boolean excludeSynthetic;
+    private boolean excludeNonPublicNested;
+
+    // Base classes / interfaces whose concrete implementations are indexed
+    public ScanOptions bases(final String dottedNames) {
+        this.bases = parseBaseClasses(dottedNames);
+        return this;
+    }
+
+    // Annotation types whose concrete carriers are indexed
+    public ScanOptions annotations(final String dottedNames) {
+        this.annotations = parseBaseClasses(dottedNames);
+        return this;
+    }
+
+    // Classes always added to the reflected classes
+    public ScanOptions reflectedClasses(final String dottedNames) {
+        this.reflectedClasses = parseBaseClasses(dottedNames);
+        return this;
+    }
+
+    public ScanOptions usePrecompiledLists(final boolean usePrecompiledLists) {
+        this.usePrecompiledLists = usePrecompiledLists;
+        return this;
+    }
+
+    public ScanOptions skipProvidedReflectConfig(final boolean skipProvidedReflectConfig) {
+        this.skipProvidedReflectConfig = skipProvidedReflectConfig;
+        return this;
+    }
+
+    // Jars with at least this many class entries use the pipelined scan, 0 disables it
+    public ScanOptions pipelineThreshold(final int pipelineThreshold) {
+        this.pipelineThreshold = pipelineThreshold;
+        return this;
+    }
+
+    // Pipeline workers, 0 uses the available processors
+    public ScanOptions scanThreads(final int scanThreads) {
+        this.scanThreads = scanThreads;
+        return this;
+    }
+
+    public ScanOptions maxBytesInFlight(final long maxBytesInFlight) {
+        this.maxBytesInFlight = maxBytesInFlight;
+        return this;
+    }
+
+    // Content-addressed per-jar scan cache, null disables it
+    public ScanOptions cacheDir(final Path cacheDir) {
+        this.cacheDir = cacheDir;
+        return this;
+    }
+
+    // Unix domain socket of a running IndexDaemon, null scans in-process only
+    public ScanOptions daemonSocket(final Path daemonSocket) {
+        this.daemonSocket = daemonSocket;
+        return this;
+    }
+
+    // Dependency jars scanned in parallel, 0 uses the available processors, 1 scans sequentially
+    public ScanOptions artifactThreads(final int artifactThreads) {
+        this.artifactThreads = artifactThreads;
+        return this;
+    }
+
+    // Per-artifact scan times of the last build, used to start expensive artifacts first, null uses file sizes only
+    public ScanOptions historyFile(final Path historyFile) {
+        this.historyFile = historyFile;
+        return this;
+    }
+
+    // Java release whose classes of multi-release jars are indexed, 0 uses the running JDK
+    public ScanOptions release(final int release) {
+        this.release = release;
+        return this;
+    }
+
+    // Where the JDK hierarchy snapshot is stored, null doesn't resolve chains through JDK classes
+    public ScanOptions platformSnapshotDir(final Path platformSnapshotDir) {
+        this.platformSnapshotDir = platformSnapshotDir;
+        return this;
+    }
+
+    // Index only classes not already listed by a dependency's precompiled index, consumers union all index files
+    public ScanOptions deltaIndex(final boolean deltaIndex) {
+        this.deltaIndex = deltaIndex;
+        return this;
+    }
+
+    // Synthetic, anonymous and local classes are dropped while scanning, nothing can instantiate them by name
+    public ScanOptions excludeSynthetic(final boolean excludeSynthetic) {
+        this.excludeSynthetic = excludeSynthetic;
+        return this;
+    }
+
+    // Nested classes not declared public are never listed, they still count as superclasses
+    public ScanOptions excludeNonPublicNested(final boolean excludeNonPublicNested) {
+        this.excludeNonPublicNested = excludeNonPublicNested;
+        return this;
+    }
+
+    List<String> bases() {
+        return bases;
+    }
+
+    List<String> annotations() {
+        return annotations;
+    }
+
+    List<String> reflectedClasses() {
+        return reflectedClasses;
+    }
+
+    boolean usePrecompiledLists() {
+        return usePrecompiledLists;
+    }
+
+    boolean skipProvidedReflectConfig() {
+        return skipProvidedReflectConfig;
+    }
+
+    int pipelineThreshold() {
+        return pipelineThreshold;
+    }
+
+    int scanThreads() {
+        return scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    long maxBytesInFlight() {
+        return maxBytesInFlight;
+    }
+
+    Path cacheDir() {
+        return cacheDir;
+    }
+
+    Path daemonSocket() {
+        return daemonSocket;
+    }
+
+    int artifactThreads() {
+        return artifactThreads > 0 ? artifactThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    Path historyFile() {
+        return historyFile;
+    }
+
+    int release() {
+        return release > 0 ? release : Runtime.version().feature();
+    }
+
+    Path platformSnapshotDir() {
+        return platformSnapshotDir;
+    }
+
+    boolean deltaIndex() {
+        return deltaIndex;
+    }
+
+    boolean excludeSynthetic() {
+        return excludeSynthetic;
+    }
+
+    boolean excludeNonPublicNested() {
+        return excludeNonPublicNested;
+    }
+
+    // Whether headers need the InnerClasses / EnclosingMethod attributes
+    boolean readsNesting() {
+        return excludeSynthetic || excludeNonPublicNested;
+    }
+
+    // Keys of the index: base types followed by annotation types
+    List<String> requestedKeys() {
+        if (annotations.isEmpty())
+            return bases;
+        final List<String> keys = new java.util.ArrayList<>(bases);
+        keys.addAll(annotations);
+        return keys;
+    }
+}
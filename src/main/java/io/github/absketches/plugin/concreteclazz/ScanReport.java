@@ -0,0 +1,72 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import berlin.yuna.typemap.model.LinkedTypeMap;
+import berlin.yuna.typemap.model.TypeList;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Machine-readable cost report of one generate run, artifacts and bases sorted by wall time (most expensive first).
+ */
+public final class ScanReport implements IndexWriter {
+
+    record Resolution(String base, int implementations, long nanos) {}
+
+    private final Path reportPath;
+    private final ScanLog log;
+
+    public ScanReport(final Path reportPath, final ScanLog log) {
+        this.reportPath = reportPath;
+        this.log = log;
+    }
+
+    @Override
+    public void write(final HierarchyIndex index) throws IOException {
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        Files.writeString(reportPath, toJson(index.scan.artifactStats, index.resolutions, index.headerCount(), index.elapsedNanos()), StandardCharsets.UTF_8);
+        log.log("[codegen-svc-list] Wrote scan report " + reportPath, 'I');
+    }
+
+    @Override
+    public String name() {
+        return "report";
+    }
+
+    static String toJson(final List<ArtifactScanStats> artifacts, final List<Resolution> resolutions, final int headers, final long totalNanos) {
+        final TypeList artifactArr = new TypeList();
+        artifacts.stream().sorted(Comparator.comparingLong((ArtifactScanStats a) -> a.nanos).reversed()).forEach(a -> {
+            final LinkedTypeMap json = new LinkedTypeMap();
+            json.put("path", a.path);
+            json.put("precompiled", a.precompiled);
+            json.put("cached", a.cached);
+            if (null != a.scanReason)
+                json.put("scanReason", a.scanReason);
+            json.put("entries", a.entries);
+            json.put("classesParsed", a.classesParsed);
+            json.put("uncompressedBytes", a.uncompressedBytes);
+            json.put("wallMicros", a.nanos / 1_000);
+            artifactArr.add(json);
+        });
+
+        final TypeList baseArr = new TypeList();
+        resolutions.stream().sorted(Comparator.comparingLong(Resolution::nanos).reversed()).forEach(r -> {
+            final LinkedTypeMap json = new LinkedTypeMap();
+            json.put("base", ClassFileUtils.toDotted(r.base()));
+            json.put("implementations", r.implementations());
+            json.put("wallMicros", r.nanos() / 1_000);
+            baseArr.add(json);
+        });
+
+        final LinkedTypeMap report = new LinkedTypeMap();
+        report.put("headers", headers);
+        report.put("wallMicros", totalNanos / 1_000);
+        report.put("artifacts", artifactArr);
+        report.put("bases", baseArr);
+        return report.toJson();
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything one scan collected: class headers, precompiled implementations from dependencies,
+ * reflection entries dependencies already provide and what each artifact cost.
+ */
+public final class ScanResult {
+    final Map<String, ClassHeader> headers = new HashMap<>(); // Headers for each class
+    final Set<String> ownClasses = new HashSet<>(); // Keys of headers read from the classes directory
+    final Map<String, Set<String>> precompiled = new LinkedHashMap<>(); // precomputed impls per base
+    final Set<String> providedReflection = new HashSet<>(); // Dotted names dependencies already register
+    final List<ArtifactScanStats> artifactStats = new ArrayList<>(); // Cost of each scanned dependency
+    final Map<String, Long> phases = new LinkedHashMap<>(); // Wall time per phase for the summary line
+    final long startedNanos = System.nanoTime();
+
+    public int headerCount() {
+        return headers.size();
+    }
+
+    public int artifactCount() {
+        return artifactStats.size();
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The header graph of the main scan, persisted in target/ so the test goal only has to scan test-classes and the
+ * test-scoped jars on top of it. A snapshot is only used with the same scan options it was written with, and only
+ * while the classes directory and every covered jar still have the size and modification time it recorded.
+ */
+final class ScanSnapshot implements IndexWriter {
+    private static final int MAGIC = 0x43435353; // "CCSS"
+    private static final int VERSION = 2; // 2: stamps of the classes directory and the jars
+
+    private final Path file;
+    private final Path classesDir;
+    private final ScanOptions options;
+    private final ScanLog log;
+
+    /**
+     * The main scan and the paths of the jars it covers.
+     */
+    record Loaded(ScanResult scan, Set<String> jars) {}
+
+    ScanSnapshot(final Path file, final Path classesDir, final ScanOptions options, final ScanLog log) {
+        this.file = file;
+        this.classesDir = classesDir;
+        this.options = options;
+        this.log = log;
+    }
+
+    @Override
+    public void write(final HierarchyIndex index) throws IOException {
+        final ScanCache.Entry entry = new ScanCache.Entry();
+        entry.headers.putAll(index.scan.headers);
+        entry.precompiled.putAll(index.scan.precompiled);
+        entry.provided.addAll(index.scan.providedReflection);
+
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path tmp = Files.createTempFile(parent, "snapshot", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(ScanCache.fingerprint(options));
+                out.writeUTF(directoryStamp(classesDir));
+                out.writeInt(index.scan.artifactStats.size());
+                for (ArtifactScanStats stats : index.scan.artifactStats) {
+                    out.writeUTF(stats.path);
+                    out.writeUTF(fileStamp(Path.of(stats.path)));
+                }
+                ScanCache.writeEntry(out, entry);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        log.log("[codegen-svc-list] Stored scan snapshot of " + entry.headers.size() + " headers in " + file, 'I');
+    }
+
+    @Override
+    public String name() {
+        return "snapshot";
+    }
+
+    /**
+     * null if there is no snapshot, it's unreadable, was written with other scan options or is stale: the classes
+     * directory changed, or a covered jar changed or isn't among jars anymore.
+     */
+    static Loaded read(final Path file, final ScanOptions options, final Path classesDir, final List<Path> jars, final ScanLog log) {
+        if (!Files.isRegularFile(file))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !ScanCache.fingerprint(options).equals(in.readUTF())) {
+                log.log("[codegen-svc-list] Scan snapshot " + file + " was written with other options, ignoring it", 'I');
+                return null;
+            }
+            if (!directoryStamp(classesDir).equals(in.readUTF())) {
+                log.log("[codegen-svc-list] Classes changed since scan snapshot " + file + ", ignoring it", 'I');
+                return null;
+            }
+            final Set<String> current = new HashSet<>();
+            jars.forEach(jar -> current.add(jar.toString()));
+            final int count = in.readInt();
+            final Set<String> covered = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                final String jar = in.readUTF();
+                if (!in.readUTF().equals(current.contains(jar) ? fileStamp(Path.of(jar)) : null)) {
+                    log.log("[codegen-svc-list] " + jar + " changed since scan snapshot " + file + ", ignoring it", 'I');
+                    return null;
+                }
+                covered.add(jar);
+            }
+            final ScanResult scan = new ScanResult();
+            ScanCache.readEntry(in).mergeInto(scan);
+            return new Loaded(scan, covered);
+        } catch (IOException ioe) {
+            log.log("[codegen-svc-list] Ignoring unreadable scan snapshot " + file + ": " + ioe, 'W');
+            return null;
+        }
+    }
+
+    // Size and modification time, "missing" for a file that is gone
+    static String fileStamp(final Path file) {
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return attrs.size() + ":" + attrs.lastModifiedTime().toMillis();
+        } catch (IOException ioe) {
+            return "missing";
+        }
+    }
+
+    // Count, total size and newest modification time of the class files below dir, the index outputs next to them don't count
+    static String directoryStamp(final Path dir) throws IOException {
+        if (!Files.isDirectory(dir))
+            return "missing";
+        long files = 0;
+        long bytes = 0;
+        long newest = 0;
+        try (var stream = Files.walk(dir)) {
+            for (Path p : stream.filter(p -> p.getFileName().toString().endsWith(".class") && Files.isRegularFile(p)).toList()) {
+                final BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                files++;
+                bytes += attrs.size();
+                newest = Math.max(newest, attrs.lastModifiedTime().toMillis());
+            }
+        }
+        return files + ":" + bytes + ":" + newest;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.nio.file.Path;
+
+/**
+ * Long-running variant of the generate goal for development: scans the dependencies once, then watches the classes
+ * directory and updates the index (and reflect-config.json) after each IDE compile. Uses the same configuration as
+ * generate, stop it with Ctrl+C.
+ */
+@Mojo(
+    name = "watch",
+    threadSafe = true,
+    requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+)
+public final class WatchConcreteClassesMojo extends CodegenConcreteClassPlugin {
+
+    /**
+     * File events arriving within this many milliseconds of each other are handled as one update
+     */
+    @Parameter(property = "codegenConcreteClass.watchDebounceMillis", defaultValue = "200")
+    private long watchDebounceMillis;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final Path classesDir = classesDir();
+        if (null == classesDir)
+            return;
+        try {
+            final IndexWatcher watcher = new IndexWatcher(new ScanEngine(scanOptions(), this::log), classesDir, jars(), writers(classesDir), this::log);
+            getLog().info(watcher.start().summary());
+            getLog().info("[codegen-svc-list] Watching " + classesDir + " (Ctrl+C to stop)");
+            watcher.watch(watchDebounceMillis, getLog()::info);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log("Exception occurred: " + ex, 'E');
+            throw new MojoExecutionException("codegen-svc-list watch failed", ex);
+        }
+    }
+}
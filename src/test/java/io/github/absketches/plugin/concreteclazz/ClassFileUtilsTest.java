@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -69,6 +71,47 @@ class ClassFileUtilsTest {
         headers.put("com/base/Base", new ClassHeader(0, "java/lang/Object"));
         headers.put("com/example/Child", new ClassHeader(0, "com/base/Base"));
         assertFalse(ClassFileUtils.isSubclassOfBase("com/example/Child", headers, cache, "com/unknown/Base"));
+
+        headers.put("com/base/Middle", new ClassHeader(0x0400, "com/base/Base"));
+        headers.put("com/example/BehindAbstract", new ClassHeader(0, "com/base/Middle"));
+        assertFalse(ClassFileUtils.isSubclassOfBase("com/example/BehindAbstract", headers, new HashMap<>(), "com/base/Base"));
+    }
+
+    @Test
+    void hierarchyWalksThroughAbstractPlatformClassesOnly() {
+        Map<String, ClassHeader> platform = new HashMap<>();
+        platform.put("java/util/AbstractList", new ClassHeader(0x0400, "java/util/AbstractCollection"));
+        Map<String, ClassHeader> headers = new HashMap<>();
+        headers.put("com/example/MyList", new ClassHeader(0, "java/util/AbstractList"));
+        headers.put("com/base/Middle", new ClassHeader(0x0400, "java/util/AbstractCollection"));
+        headers.put("com/example/Impl", new ClassHeader(0, "com/base/Middle"));
+        headers.put("com/example/Lost", new ClassHeader(0, "com/missing/Parent"));
+        Map<String, ClassHeader> all = PlatformHierarchy.over(headers, platform);
+
+        Map<String, Boolean> cache = new HashMap<>();
+        assertTrue(ClassFileUtils.isSubclassOfBase("com/example/MyList", all, platform, cache, "java/util/AbstractCollection"));
+        assertFalse(ClassFileUtils.isSubclassOfBase("com/example/Impl", all, platform, cache, "java/util/AbstractCollection"), "Abstract scanned classes still end the chain");
+        assertFalse(ClassFileUtils.isSubclassOfBase("com/example/Lost", all, platform, cache, "java/util/AbstractCollection"));
+    }
+
+    @Test
+    void resolvesTransitiveInterfaceImplementations() {
+        Map<String, ClassHeader> headers = new HashMap<>();
+        headers.put("com/api/Api", new ClassHeader(0x0600, "java/lang/Object"));
+        headers.put("com/api/SubApi", new ClassHeader(0x0600, "java/lang/Object", List.of("com/api/Api")));
+        headers.put("com/example/Direct", new ClassHeader(0, "java/lang/Object", List.of("com/api/Api")));
+        headers.put("com/example/ViaSubInterface", new ClassHeader(0, "java/lang/Object", List.of("com/api/SubApi")));
+        headers.put("com/example/AbstractImpl", new ClassHeader(0x0400, "java/lang/Object", List.of("com/api/SubApi")));
+        headers.put("com/example/ViaSuperclass", new ClassHeader(0, "com/example/AbstractImpl"));
+        headers.put("com/example/Unrelated", new ClassHeader(0, "java/lang/Object", List.of("java/io/Serializable")));
+
+        Map<String, Boolean> cache = new HashMap<>();
+        assertTrue(ClassFileUtils.isImplementationOf("com/example/Direct", headers, cache, "com/api/Api"));
+        assertTrue(ClassFileUtils.isImplementationOf("com/example/ViaSubInterface", headers, cache, "com/api/Api"));
+        assertTrue(ClassFileUtils.isImplementationOf("com/example/ViaSuperclass", headers, cache, "com/api/Api"));
+        assertFalse(ClassFileUtils.isImplementationOf("com/example/Unrelated", headers, cache, "com/api/Api"));
+        assertEquals(Boolean.TRUE, cache.get("com/api/SubApi"));
+        assertEquals(Boolean.FALSE, cache.get("java/io/Serializable"));
     }
 
     @Test
@@ -118,14 +161,17 @@ class ClassFileUtilsTest {
 
         Map<String, Set<String>> precomputed = new HashMap<>();
         Set<String> allowed = new HashSet<>(Set.of("com/example/Base"));
-        boolean matched = ClassFileUtils.readAllPropertiesFromJarDir(new java.util.jar.JarFile(jarFile.toFile()), dirPrefix, precomputed, allowed);
+        try (java.util.jar.JarFile jf = new java.util.jar.JarFile(jarFile.toFile())) {
+            List<java.util.jar.JarEntry> files = precompiledIndexes(jf, dirPrefix);
+            boolean matched = ClassFileUtils.readProperties(jf, files, precomputed, allowed, new HashSet<>());
 
-        assertTrue(matched);
-        assertEquals(Set.of("impl/One", "impl/Two"), precomputed.get("com/example/Base"));
+            assertTrue(matched);
+            assertEquals(Set.of("impl/One", "impl/Two"), precomputed.get("com/example/Base"));
 
-        // Missing base should return false
-        boolean missing = ClassFileUtils.readAllPropertiesFromJarDir(new java.util.jar.JarFile(jarFile.toFile()), dirPrefix, precomputed, Set.of("unknown/Base"));
-        assertFalse(missing);
+            // Missing base should return false
+            boolean missing = ClassFileUtils.readProperties(jf, files, precomputed, Set.of("unknown/Base"), new HashSet<>());
+            assertFalse(missing);
+        }
     }
 
     @Test
@@ -162,12 +208,38 @@ class ClassFileUtilsTest {
 
         Map<String, Set<String>> precomputed = new HashMap<>();
         Set<String> allowed = Set.of("com/example/Base", "com/example/Missing");
-        boolean matched = ClassFileUtils.readAllPropertiesFromJarDir(new java.util.jar.JarFile(jarFile.toFile()), dirPrefix, precomputed, allowed);
-
-        assertFalse(matched, "Missing allowed base should report false");
+        Set<String> found = new HashSet<>();
+        try (java.util.jar.JarFile jf = new java.util.jar.JarFile(jarFile.toFile())) {
+            boolean matched = ClassFileUtils.readProperties(jf, precompiledIndexes(jf, dirPrefix), precomputed, allowed, found);
+            assertFalse(matched, "Missing allowed base should report false");
+        }
+        assertEquals(Set.of("com/example/Base"), found);
         assertTrue(precomputed.getOrDefault("com/example/Base", Set.of()).isEmpty());
     }
 
+    @Test
+    void readsReflectConfigsProvidedByJar() throws Exception {
+        Path jarFile = Files.createTempDirectory("jar-reflect").resolve("reflect.jar");
+        TestUtils.createJar(jarFile, jos -> {
+            try {
+                TestUtils.addEntry(jos, "META-INF/native-image/g/a/reflect-config.json",
+                    "[{\"name\":\"com.example.Covered\",\"allDeclaredConstructors\":true},{\"name\":\"com.example.FieldsOnly\",\"allDeclaredFields\":true}]".getBytes());
+                TestUtils.addEntry(jos, "META-INF/other/reflect-config.json", "[{\"name\":\"com.example.Ignored\",\"allDeclaredConstructors\":true}]".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Set<String> provided = new HashSet<>();
+        try (java.util.jar.JarFile jf = new java.util.jar.JarFile(jarFile.toFile())) {
+            for (java.util.jar.JarEntry e : Collections.list(jf.entries())) {
+                if (ClassFileUtils.isReflectConfig(e))
+                    ClassFileUtils.readReflectConfig(jf, e, provided);
+            }
+        }
+        assertEquals(Set.of("com.example.Covered"), provided);
+    }
+
     @Test
     void mergeJsonPreservesObjectsWithoutName() {
         Set<String> classes = Set.of("com.example.Added");
@@ -178,4 +250,58 @@ class ClassFileUtilsTest {
         assertTrue(merged.contains("\"foo\":\"bar\""));
         assertTrue(merged.contains("com.example.Added"));
     }
+
+    @Test
+    void mergesReachabilityJsonWithConditions() {
+        Map<String, Set<String>> types = new LinkedHashMap<>();
+        types.put("com.example.Base", Set.of("com.example.Existing"));
+        types.put("com.example.Other", Set.of("com.example.Existing"));
+        types.put("", Set.of("com.example.Manual"));
+        String existing = "{\"resources\":[{\"glob\":\"x.txt\"}],\"reflection\":[{\"condition\":{\"typeReached\":\"com.example.Base\"},\"type\":\"com.example.Existing\"}]}";
+
+        String merged = ClassFileUtils.mergeReachabilityJson(types, existing);
+
+        assertTrue(merged.contains("\"glob\":\"x.txt\""));
+        assertEquals(1, merged.split("\"typeReached\":\"com.example.Base\"", -1).length - 1);
+        assertTrue(merged.contains("\"typeReached\":\"com.example.Other\""));
+        assertTrue(merged.contains("com.example.Manual"));
+        assertEquals(3, merged.split("allDeclaredConstructors\":true", -1).length - 1);
+    }
+
+    @Test
+    void mergesReachabilityJsonWhenExistingContentMissing() {
+        String merged = ClassFileUtils.mergeReachabilityJson(Map.of("com.example.Base", Set.of("com.example.Impl")), " ");
+
+        assertTrue(merged.startsWith("{\"reflection\":["));
+        assertTrue(merged.contains("\"typeReached\":\"com.example.Base\""));
+        assertTrue(merged.contains("\"type\":\"com.example.Impl\""));
+    }
+
+    @Test
+    void addsFilesToIndexListingOnce() {
+        assertEquals("services.properties\n", ClassFileUtils.addToIndexListing(null, "services.properties"));
+        assertEquals("a.properties\nservices.properties\n", ClassFileUtils.addToIndexListing("services.properties\n\na.properties", "services.properties"));
+    }
+
+    @Test
+    void mapsRepackagedEntriesToInternalNames() {
+        assertEquals("com/a/B", ClassFileUtils.classKey("com/a/B.class"));
+        assertEquals("com/a/B", ClassFileUtils.classKey("BOOT-INF/classes/com/a/B.class"));
+        assertEquals("com/a/B", ClassFileUtils.classKey("WEB-INF/classes/com/a/B.class"));
+        assertEquals("com/a/B", ClassFileUtils.classKey("META-INF/versions/17/com/a/B.class"));
+        assertEquals(17, ClassFileUtils.releaseOf("META-INF/versions/17/com/a/B.class"));
+        assertEquals(0, ClassFileUtils.releaseOf("META-INF/versions/x/com/a/B.class"));
+        assertTrue(ClassFileUtils.isInfoClass("META-INF/versions/9/module-info.class"));
+        assertTrue(ClassFileUtils.isInfoClass("com/a/package-info.class"));
+        assertFalse(ClassFileUtils.isInfoClass("com/a/my-module-info.class"));
+        assertTrue(ClassFileUtils.isNestedJar("BOOT-INF/lib/dep-1.0.jar"));
+        assertTrue(ClassFileUtils.isNestedJar("lib/dep.jar"));
+        assertFalse(ClassFileUtils.isNestedJar("BOOT-INF/lib/sub/dep.jar"));
+        assertFalse(ClassFileUtils.isNestedJar("docs/dep.jar"));
+    }
+
+    // The precompiled index files a jar scan picks from the central directory
+    private static List<java.util.jar.JarEntry> precompiledIndexes(final java.util.jar.JarFile jf, final String dirPrefix) {
+        return Collections.list(jf.entries()).stream().filter(e -> ClassFileUtils.isPrecompiledIndex(e, dirPrefix)).toList();
+    }
 }
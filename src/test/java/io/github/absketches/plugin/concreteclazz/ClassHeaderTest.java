@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -33,6 +35,48 @@ class ClassHeaderTest {
         assertTrue(abstractHeader.isAbstract());
     }
 
+    @Test
+    void readsInterfacesTable() throws IOException {
+        byte[] bytes = TestUtils.buildClassBytes("com/example/Impl", "java/lang/Object", 0, "com/example/Api", "java/io/Serializable");
+        ClassHeader header = ClassHeader.read(new ByteArrayInputStream(bytes));
+
+        assertEquals("java/lang/Object", header.superInternalName());
+        assertEquals(List.of("com/example/Api", "java/io/Serializable"), header.interfaces());
+
+        byte[] none = TestUtils.buildClassBytes("com/example/Plain", "java/lang/Object", 0);
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(none)).interfaces().isEmpty());
+    }
+
+    @Test
+    void readsRequestedRuntimeVisibleAnnotations() throws IOException {
+        byte[] bytes = TestUtils.buildAnnotatedClassBytes("com/example/Impl", "java/lang/Object", 0, "com/example/Plugin", "com/example/Other");
+
+        ClassHeader header = ClassHeader.read(new ByteArrayInputStream(bytes), Set.of("com/example/Plugin", "com/example/Missing"));
+        assertEquals(Set.of("com/example/Plugin"), header.annotations());
+        assertEquals("java/lang/Object", header.superInternalName());
+
+        // Without requested annotation types the attributes aren't parsed
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(bytes)).annotations().isEmpty());
+    }
+
+    @Test
+    void readsSyntheticAndNestingFlags() throws IOException {
+        byte[] member = TestUtils.buildNestedClassBytes("com/example/Outer$Member", "java/lang/Object", 0, "com/example/Outer", "Member", 0x0008, false);
+        byte[] publicMember = TestUtils.buildNestedClassBytes("com/example/Outer$Open", "java/lang/Object", 0x0001, "com/example/Outer", "Open", 0x0009, false);
+        byte[] anonymous = TestUtils.buildNestedClassBytes("com/example/Outer$1", "java/lang/Object", 0, null, null, 0, true);
+        byte[] local = TestUtils.buildNestedClassBytes("com/example/Outer$1Local", "java/lang/Object", 0, null, "Local", 0, true);
+
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(member), Set.of(), true).isNonPublicNested());
+        ClassHeader open = ClassHeader.read(new ByteArrayInputStream(publicMember), Set.of(), true);
+        assertFalse(open.isNonPublicNested() || open.isLocalOrAnonymous());
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(anonymous), Set.of(), true).isLocalOrAnonymous());
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(local), Set.of(), true).isLocalOrAnonymous());
+        assertTrue(ClassHeader.read(new ByteArrayInputStream(TestUtils.buildClassBytes("com/example/Gen", "java/lang/Object", 0x1000))).isSynthetic());
+
+        // Without nesting the attributes aren't parsed
+        assertFalse(ClassHeader.read(new ByteArrayInputStream(anonymous)).isLocalOrAnonymous());
+    }
+
     @Test
     void failsOnWrongMagicNumber() {
         byte[] broken = new byte[]{0, 1, 2, 3};
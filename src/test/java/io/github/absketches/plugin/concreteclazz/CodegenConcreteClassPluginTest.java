@@ -5,6 +5,9 @@ import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -12,15 +15,16 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -43,239 +47,374 @@ class CodegenConcreteClassPluginTest {
     }
 
     @Test
-    void scanDirectoryCollectsHeaders() throws Exception {
-        Path classes = Path.of(project.getBuild().getOutputDirectory());
-        TestUtils.writeClassFile(classes, "com/example/Impl", "java/lang/Object", 0);
-
-        Method scanDirectory = CodegenConcreteClassPlugin.class.getDeclaredMethod("scanDirectory", Path.class, Map.class);
-        scanDirectory.setAccessible(true);
-
-        Map<String, ClassHeader> headers = new HashMap<>();
-        scanDirectory.invoke(plugin, classes, headers);
+    void jarsOfSkipsNonJars() throws Exception {
+        Path tempDir = Files.createTempDirectory("artifact-skip");
+        Path pomFile = tempDir.resolve("pom.file");
+        Files.writeString(pomFile, "not-a-jar");
+        Path jarFile = TestUtils.createJar(tempDir.resolve("dep.jar"), jos -> {});
 
-        assertEquals(1, headers.size());
-        assertEquals("java/lang/Object", headers.get("com/example/Impl").superInternalName());
+        DefaultArtifact pom = new DefaultArtifact(
+                "g", "a", "1", "compile", "pom", null, new DefaultArtifactHandler("pom"));
+        pom.setFile(pomFile.toFile());
+        DefaultArtifact jar = new DefaultArtifact(
+                "g", "b", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        jar.setFile(jarFile.toFile());
+        DefaultArtifact unresolved = new DefaultArtifact(
+                "g", "c", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+
+        assertEquals(List.of(jarFile), CodegenConcreteClassPlugin.jarsOf(List.of(pom, jar, unresolved)), "Non-jar artifacts should be ignored");
     }
 
     @Test
-    void prepareToScanJarUsesPrecompiledPropertiesWhenAllBasesPresent() throws Exception {
-        Path tempDir = Files.createTempDirectory("jar-precompiled");
-        Path jarPath = tempDir.resolve("precompiled.jar");
-
-        String dirPrefix = CodegenConcreteClassPlugin.outputDir;
-        TestUtils.createJar(jarPath, jos -> {
-            try {
-                String props = "com.example.Base=com.example.ImplOne,com.example.ImplTwo";
-                TestUtils.addEntry(jos, dirPrefix + "services.properties", props.getBytes());
-                byte[] bytes = TestUtils.buildClassBytes("com/example/ImplOne", "java/lang/Object", 0);
-                TestUtils.addEntry(jos, "com/example/ImplOne.class", bytes);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
-
-        Map<String, ClassHeader> headers = new HashMap<>();
-        Map<String, Set<String>> precomputed = new LinkedHashMap<>();
-        List<String> allowed = List.of("com/example/Base");
-
-        Method prepareToScanJar = CodegenConcreteClassPlugin.class.getDeclaredMethod(
-                "prepareToScanJar", java.io.File.class, Map.class, Map.class, List.class);
-        prepareToScanJar.setAccessible(true);
+    void executeWrapsExceptionsFromScanning() throws Exception {
+        TestUtils.setField(plugin, "baseClasses", "org.nanonative.nano.core.model.Service");
+        TestLog log = new TestLog();
+        plugin.setLog(log);
 
-        TestUtils.setField(plugin, "usePrecompiledLists", true);
-        prepareToScanJar.invoke(plugin, jarPath.toFile(), headers, precomputed, allowed);
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        Files.writeString(classes.resolve("Bad.class"), "not-a-class");
+        project.setArtifacts(new HashSet<>());
 
-        assertTrue(headers.isEmpty(), "Should skip scanning classes when properties are complete");
-        assertEquals(Set.of("com/example/ImplOne", "com/example/ImplTwo"), precomputed.get("com/example/Base"));
+        assertThrows(MojoExecutionException.class, plugin::execute);
+        assertTrue(log.errors.stream().anyMatch(msg -> msg.contains("Corrupt stream")));
     }
 
     @Test
-    void prepareToScanJarScansWhenPrecompiledEntriesMissing() throws Exception {
-        Path tempDir = Files.createTempDirectory("jar-precompiled-missing");
-        Path jarPath = tempDir.resolve("scan.jar");
-
-        String dirPrefix = CodegenConcreteClassPlugin.outputDir;
-        TestUtils.createJar(jarPath, jos -> {
-            try {
-                String props = "com.example.Other=impl.One";
-                TestUtils.addEntry(jos, dirPrefix + "services.properties", props.getBytes());
-                byte[] bytes = TestUtils.buildClassBytes("com/example/Scanned", "java/lang/Object", 0);
-                TestUtils.addEntry(jos, "com/example/Scanned.class", bytes);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
-
-        Map<String, ClassHeader> headers = new HashMap<>();
-        Map<String, Set<String>> precomputed = new LinkedHashMap<>();
-        List<String> allowed = List.of("com/example/Missing");
+    void executeWritesReflectConfigWhenOnlyReflectedClassesProvided() throws Exception {
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "baseClasses", "com.example.Base");
+        TestUtils.setField(plugin, "reflectedClasses", "com.example.ManualOne,com.example.ManualTwo");
+        project.setArtifacts(new HashSet<>());
 
-        Method prepareToScanJar = CodegenConcreteClassPlugin.class.getDeclaredMethod(
-                "prepareToScanJar", java.io.File.class, Map.class, Map.class, List.class);
-        prepareToScanJar.setAccessible(true);
+        plugin.execute();
 
-        prepareToScanJar.invoke(plugin, jarPath.toFile(), headers, precomputed, allowed);
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        Path reflectPath = classes
+                .resolve("META-INF/native-image")
+                .resolve(project.getGroupId())
+                .resolve(project.getArtifactId())
+                .resolve("reflect-config.json");
 
-        assertTrue(headers.containsKey("com/example/Scanned"), "Should scan classes when precompiled entries are incomplete");
-        assertTrue(precomputed.isEmpty());
+        assertTrue(Files.exists(reflectPath));
+        String json = Files.readString(reflectPath);
+        assertTrue(json.contains("com.example.ManualOne"));
+        assertTrue(json.contains("com.example.ManualTwo"));
     }
 
     @Test
-    void prepareToScanJarFallsBackToScanningClasses() throws Exception {
-        Path tempDir = Files.createTempDirectory("jar-scan");
-        Path jarPath = tempDir.resolve("scan.jar");
+    void executeIndexesInterfaceImplementationsFromDirectoryAndJars() throws Exception {
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        TestUtils.writeClassFile(classes, "com/api/Api", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/example/LocalImpl", "java/lang/Object", 0, "com/api/Api");
 
+        Path jarPath = Files.createTempDirectory("itf-jar").resolve("dep.jar");
         TestUtils.createJar(jarPath, jos -> {
             try {
-                byte[] bytes = TestUtils.buildClassBytes("com/example/JarImpl", "java/lang/Object", 0);
-                TestUtils.addEntry(jos, "com/example/JarImpl.class", bytes);
+                TestUtils.addEntry(jos, "com/dep/SubApi.class", TestUtils.buildClassBytes("com/dep/SubApi", "java/lang/Object", 0x0600, "com/api/Api"));
+                TestUtils.addEntry(jos, "com/dep/AbstractBase.class", TestUtils.buildClassBytes("com/dep/AbstractBase", "java/lang/Object", 0x0400, "com/dep/SubApi"));
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "com/dep/AbstractBase", 0));
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         });
+        DefaultArtifact artifact = new DefaultArtifact("g", "dep", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(jarPath.toFile());
+        project.setArtifacts(Set.of(artifact));
 
-        Map<String, ClassHeader> headers = new HashMap<>();
-        Map<String, Set<String>> precomputed = new LinkedHashMap<>();
-        List<String> allowed = List.of("com/example/Base");
+        TestUtils.setField(plugin, "baseClasses", "com.api.Api");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "reflectedClasses", " ");
+        plugin.execute();
 
-        Method prepareToScanJar = CodegenConcreteClassPlugin.class.getDeclaredMethod(
-                "prepareToScanJar", java.io.File.class, Map.class, Map.class, List.class);
-        prepareToScanJar.setAccessible(true);
+        String content = Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties"));
+        assertEquals("com.api.Api=com.dep.DepImpl,com.example.LocalImpl\n", content);
+        assertNull(project.getContextValue(HierarchyGraph.CONTEXT_KEY), "The graph is only published on request");
 
-        prepareToScanJar.invoke(plugin, jarPath.toFile(), headers, precomputed, allowed);
+        TestUtils.setField(plugin, "publishGraph", true);
+        plugin.execute();
 
-        assertEquals(1, headers.size());
-        assertTrue(headers.containsKey("com/example/JarImpl"));
+        @SuppressWarnings("unchecked")
+        Map<String, Function<String, List<String>>> graph = (Map<String, Function<String, List<String>>>) project.getContextValue(HierarchyGraph.CONTEXT_KEY);
+        assertEquals(List.of("com.dep.AbstractBase", "com.dep.DepImpl", "com.dep.SubApi", "com.example.LocalImpl"), graph.get("subtypes").apply("com.api.Api"));
+        assertEquals(List.of("com.dep.DepImpl", "com.example.LocalImpl"), graph.get("concreteSubtypes").apply("com.api.Api"));
+        assertEquals(List.of("com.dep.AbstractBase", "java.lang.Object"), graph.get("superclassChain").apply("com.dep.DepImpl"));
+        assertEquals(List.of(), graph.get("superclassChain").apply("com.api.Api"));
     }
 
     @Test
-    void processArtifactSkipsNonJars() throws Exception {
-        Path tempDir = Files.createTempDirectory("artifact-skip");
-        Path pomFile = tempDir.resolve("pom.file");
-        Files.writeString(pomFile, "not-a-jar");
+    void executeWritesEveryIndexDefinitionFromOneScan() throws Exception {
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        TestUtils.writeClassFile(classes, "com/api/Service", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/api/Handler", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/app/MainService", "java/lang/Object", 0, "com/api/Service");
+        TestUtils.writeClassFile(classes, "com/app/internal/HiddenService", "java/lang/Object", 0, "com/api/Service");
+        TestUtils.writeClassFile(classes, "com/app/MainHandler", "java/lang/Object", 0, "com/api/Handler");
+        project.setArtifacts(new HashSet<>());
 
-        DefaultArtifact artifact = new DefaultArtifact(
-                "g", "a", "1", "compile", "pom", null, new DefaultArtifactHandler("pom"));
-        artifact.setFile(pomFile.toFile());
+        TestUtils.setField(plugin, "baseClasses", " ");
+        TestUtils.setField(plugin, "annotationClasses", " ");
+        TestUtils.setField(plugin, "reflectedClasses", "com.example.Manual");
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "definitions", List.of(
+            new IndexDefinition().name("services").baseClasses("com.api.Service").excludes("com.app.internal."),
+            new IndexDefinition().name("handlers").baseClasses("com.api.Handler").outputFile("handlers.idx").reflectConfig(false)));
+        TestLog log = new TestLog();
+        plugin.setLog(log);
+        plugin.execute();
 
-        Method processArtifact = CodegenConcreteClassPlugin.class.getDeclaredMethod(
-                "processArtifact", org.apache.maven.artifact.Artifact.class, Map.class, Map.class, List.class);
-        processArtifact.setAccessible(true);
+        assertEquals("com.api.Service=com.app.MainService\n", Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties")));
+        assertEquals("com.api.Handler=com.app.MainHandler\n", Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "handlers.idx")));
+        String json = Files.readString(classes.resolve("META-INF/native-image/io.test/plugin/reflect-config.json"));
+        assertTrue(json.contains("com.app.MainService") && json.contains("com.example.Manual"));
+        assertFalse(json.contains("com.app.MainHandler") || json.contains("HiddenService"));
+        assertTrue(log.infos.stream().anyMatch(msg -> msg.contains("5 headers")), "One scan for all definitions");
+    }
 
-        Map<String, ClassHeader> headers = new HashMap<>();
-        Map<String, Set<String>> precomputed = new LinkedHashMap<>();
+    @Test
+    void forcedReflectedClassesSurviveDefinitionFilters() throws Exception {
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        TestUtils.writeClassFile(classes, "com/api/Service", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/api/Handler", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/app/MainService", "java/lang/Object", 0, "com/api/Service");
+        TestUtils.writeClassFile(classes, "com/app/internal/HiddenService", "java/lang/Object", 0, "com/api/Service");
+        TestUtils.writeClassFile(classes, "com/app/MainHandler", "java/lang/Object", 0, "com/api/Handler");
+        project.setArtifacts(new HashSet<>());
 
-        processArtifact.invoke(plugin, artifact, headers, precomputed, List.of("com/example/Base"));
+        TestUtils.setField(plugin, "baseClasses", " ");
+        TestUtils.setField(plugin, "annotationClasses", " ");
+        TestUtils.setField(plugin, "reflectedClasses", "com.app.internal.HiddenService,com.app.MainHandler");
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "definitions", List.of(
+            new IndexDefinition().name("services").baseClasses("com.api.Service").excludes("com.app.internal."),
+            new IndexDefinition().name("handlers").baseClasses("com.api.Handler").reflectConfig(false)));
+        plugin.setLog(new TestLog());
+        plugin.execute();
 
-        assertTrue(headers.isEmpty(), "Non-jar artifacts should be ignored");
-        assertTrue(precomputed.isEmpty());
+        assertEquals("com.api.Service=com.app.MainService\n", Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties")));
+        String json = Files.readString(classes.resolve("META-INF/native-image/io.test/plugin/reflect-config.json"));
+        assertTrue(json.contains("com.app.MainService"));
+        assertTrue(json.contains("com.app.internal.HiddenService"), "Forced although the definition excludes it");
+        assertTrue(json.contains("com.app.MainHandler"), "Forced although its definition has no reflectConfig");
     }
 
     @Test
-    void processArtifactLogsIOException() throws Exception {
-        Path tempDir = Files.createTempDirectory("artifact-error");
-        Path brokenJar = tempDir.resolve("broken.jar");
-        Files.writeString(brokenJar, "corrupt");
-
-        DefaultArtifact artifact = new DefaultArtifact(
-                "g", "a", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
-        artifact.setFile(brokenJar.toFile());
-
-        Method processArtifact = CodegenConcreteClassPlugin.class.getDeclaredMethod(
-                "processArtifact", org.apache.maven.artifact.Artifact.class, Map.class, Map.class, List.class);
-        processArtifact.setAccessible(true);
+    void generateTestScansOnlyTestClassesAndTestArtifactsOnTopOfTheMainSnapshot() throws Exception {
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        Path testClasses = Files.createTempDirectory("test-classes");
+        project.getBuild().setTestOutputDirectory(testClasses.toString());
+        Path snapshot = Files.createTempDirectory("target").resolve("scan.snapshot");
+        TestUtils.writeClassFile(classes, "com/api/Api", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/app/MainImpl", "java/lang/Object", 0, "com/api/Api");
+        TestUtils.writeClassFile(testClasses, "com/app/TestImpl", "com/app/MainImpl", 0);
+        DefaultArtifact mainDep = jarArtifact("main-dep", "com/dep/MainDepImpl");
+        DefaultArtifact testDep = jarArtifact("test-dep", "com/dep/TestDepImpl");
+
+        project.setArtifacts(Set.of(mainDep));
+        TestUtils.setField(plugin, "baseClasses", "com.api.Api");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "scanSnapshotFile", snapshot.toFile());
+        TestUtils.setField(plugin, "writeScanSnapshot", true);
+        plugin.setLog(new TestLog());
+        plugin.execute();
+        assertTrue(Files.isRegularFile(snapshot));
 
+        GenerateTestIndexMojo testGoal = new GenerateTestIndexMojo();
+        TestUtils.setField(testGoal, "project", project);
+        TestUtils.setField(testGoal, "baseClasses", "com.api.Api");
+        TestUtils.setField(testGoal, "outputFile", "services.properties");
+        TestUtils.setField(testGoal, "scanSnapshotFile", snapshot.toFile());
         TestLog log = new TestLog();
-        plugin.setLog(log);
-
-        Map<String, ClassHeader> headers = new HashMap<>();
-        Map<String, Set<String>> precomputed = new LinkedHashMap<>();
-
-        processArtifact.invoke(plugin, artifact, headers, precomputed, List.of("com/example/Base"));
+        testGoal.setLog(log);
+        project.setArtifacts(new LinkedHashSet<>(List.of(mainDep, testDep)));
+        testGoal.execute();
+
+        assertEquals("com.api.Api=com.app.MainImpl,com.app.TestImpl,com.dep.MainDepImpl,com.dep.TestDepImpl\n",
+            Files.readString(testClasses.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties")));
+        assertTrue(log.infos.stream().anyMatch(msg -> msg.contains("from 1 artifacts")), "Only the test-scoped jar is scanned: " + log.infos);
+
+        // Main classes changed after the snapshot was written: it's stale, so everything is scanned again
+        TestUtils.writeClassFile(classes, "com/app/LaterImpl", "java/lang/Object", 0, "com/api/Api");
+        TestLog stale = new TestLog();
+        testGoal.setLog(stale);
+        testGoal.execute();
+        assertEquals("com.api.Api=com.app.LaterImpl,com.app.MainImpl,com.app.TestImpl,com.dep.MainDepImpl,com.dep.TestDepImpl\n",
+            Files.readString(testClasses.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties")));
+        assertTrue(stale.infos.stream().anyMatch(msg -> msg.contains("from 2 artifacts")), "Stale snapshot must not be used: " + stale.infos);
+
+        // Same for a covered jar that changed, e.g. a new SNAPSHOT of a dependency
+        plugin.execute();
+        Files.setLastModifiedTime(mainDep.getFile().toPath(), java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        TestLog changedJar = new TestLog();
+        testGoal.setLog(changedJar);
+        testGoal.execute();
+        assertTrue(changedJar.infos.stream().anyMatch(msg -> msg.contains("from 2 artifacts")), "Changed jar invalidates the snapshot: " + changedJar.infos);
+    }
 
-        assertTrue(headers.isEmpty());
-        assertTrue(log.errors.stream().anyMatch(msg -> msg.contains("Jar scan failed")));
+    private static DefaultArtifact jarArtifact(final String name, final String implementation) throws IOException {
+        Path jarPath = TestUtils.createJar(Files.createTempDirectory(name).resolve(name + ".jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, implementation + ".class", TestUtils.buildClassBytes(implementation, "java/lang/Object", 0, "com/api/Api"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        DefaultArtifact artifact = new DefaultArtifact("g", name, "1", "test", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(jarPath.toFile());
+        return artifact;
     }
 
     @Test
-    void executeWrapsExceptionsFromScanning() throws Exception {
-        TestUtils.setField(plugin, "baseClasses", "org.nanonative.nano.core.model.Service");
-        TestLog log = new TestLog();
-        plugin.setLog(log);
-
+    void executeIndexesAnnotatedClassesWithoutBaseClasses() throws Exception {
         Path classes = Path.of(project.getBuild().getOutputDirectory());
-        Files.writeString(classes.resolve("Bad.class"), "not-a-class");
+        Path local = classes.resolve("com/example/Annotated.class");
+        Files.createDirectories(local.getParent());
+        Files.write(local, TestUtils.buildAnnotatedClassBytes("com/example/Annotated", "java/lang/Object", 0, "com/example/Plugin"));
+        Path abs = classes.resolve("com/example/AbstractAnnotated.class");
+        Files.write(abs, TestUtils.buildAnnotatedClassBytes("com/example/AbstractAnnotated", "java/lang/Object", 0x0400, "com/example/Plugin"));
+        TestUtils.writeClassFile(classes, "com/example/Plain", "java/lang/Object", 0);
         project.setArtifacts(new HashSet<>());
 
-        assertThrows(MojoExecutionException.class, plugin::execute);
-        assertTrue(log.errors.stream().anyMatch(msg -> msg.contains("Corrupt stream")));
-    }
-
-    @Test
-    void writePropertiesSkipsWhenContentUnchanged() throws Exception {
+        TestUtils.setField(plugin, "baseClasses", " ");
+        TestUtils.setField(plugin, "annotationClasses", "com.example.Plugin");
         TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "reflectedClasses", " ");
+        plugin.execute();
 
-        Method writeProperties = CodegenConcreteClassPlugin.class.getDeclaredMethod("writeProperties", Path.class, Map.class);
-        writeProperties.setAccessible(true);
+        String content = Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties"));
+        assertEquals("com.example.Plugin=com.example.Annotated\n", content);
+        String json = Files.readString(classes.resolve("META-INF/native-image/io.test/plugin/reflect-config.json"));
+        assertTrue(json.contains("com.example.Annotated"));
+    }
 
+    @Test
+    void executeSkipsReflectConfigEntriesProvidedByDependencies() throws Exception {
         Path classes = Path.of(project.getBuild().getOutputDirectory());
-        Map<String, Set<String>> result = new LinkedHashMap<>();
-        result.put("com/example/Base", new TreeSet<>(Set.of("com/example/Impl")));
+        TestUtils.writeClassFile(classes, "com/example/LocalImpl", "com/base/Base", 0);
 
-        writeProperties.invoke(plugin, classes, result);
-        Path outFile = classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties");
-        String content = Files.readString(outFile);
+        Path jarPath = Files.createTempDirectory("provided-reflect").resolve("dep.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "com/base/Base", 0));
+                TestUtils.addEntry(jos, "META-INF/native-image/g/dep/reflect-config.json",
+                    "[{\"name\":\"com.dep.DepImpl\",\"allDeclaredConstructors\":true}]".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        DefaultArtifact artifact = new DefaultArtifact("g", "dep", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(jarPath.toFile());
+        project.setArtifacts(Set.of(artifact));
 
-        writeProperties.invoke(plugin, classes, result);
-        String contentAfter = Files.readString(outFile);
+        TestUtils.setField(plugin, "baseClasses", "com.base.Base");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "skipProvidedReflectConfig", true);
+        plugin.execute();
 
-        assertEquals(content, contentAfter);
+        String content = Files.readString(classes.resolve(CodegenConcreteClassPlugin.outputDir + "services.properties"));
+        assertEquals("com.base.Base=com.dep.DepImpl,com.example.LocalImpl\n", content);
+        String json = Files.readString(classes.resolve("META-INF/native-image/io.test/plugin/reflect-config.json"));
+        assertTrue(json.contains("com.example.LocalImpl"));
+        assertFalse(json.contains("com.dep.DepImpl"));
     }
 
     @Test
-    void writeReflectConfigMergesExistingContent() throws Exception {
-        Method writeReflectConfig = CodegenConcreteClassPlugin.class.getDeclaredMethod("writeReflectConfig", Set.class, Path.class);
-        writeReflectConfig.setAccessible(true);
-
+    void executeEmitsFlightRecorderEventsAndSummary() throws Exception {
         Path classes = Path.of(project.getBuild().getOutputDirectory());
-        Path reflectPath = classes
-                .resolve("META-INF/native-image")
-                .resolve(project.getGroupId())
-                .resolve(project.getArtifactId())
-                .resolve("reflect-config.json");
-
-        Files.createDirectories(reflectPath.getParent());
-        Files.writeString(reflectPath, "[{\"name\":\"com.example.Existing\",\"allDeclaredConstructors\":false}]");
+        TestUtils.writeClassFile(classes, "com/example/LocalImpl", "com/base/Base", 0);
+        Path jarPath = Files.createTempDirectory("jfr-jar").resolve("dep.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "com/base/Base", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        DefaultArtifact artifact = new DefaultArtifact("g", "dep", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(jarPath.toFile());
+        project.setArtifacts(Set.of(artifact));
 
-        Set<String> classesToWrite = Set.of("com.example.Existing", "com.example.New");
-        writeReflectConfig.invoke(plugin, classesToWrite, classes);
+        TestUtils.setField(plugin, "baseClasses", "com.base.Base");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestLog log = new TestLog();
+        plugin.setLog(log);
 
-        String merged = Files.readString(reflectPath);
-        assertTrue(merged.contains("com.example.Existing"));
-        assertTrue(merged.contains("com.example.New"));
-        assertTrue(merged.contains("allDeclaredConstructors\":true"));
+        Path recordingFile = Files.createTempDirectory("jfr").resolve("scan.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("io.github.absketches.plugin.ArtifactScan");
+            recording.enable("io.github.absketches.plugin.DirectoryScan");
+            recording.enable("io.github.absketches.plugin.BaseResolution");
+            recording.enable("io.github.absketches.plugin.JsonMerge");
+            recording.enable("io.github.absketches.plugin.OutputWrite");
+            recording.start();
+            plugin.execute();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        Set<String> types = new HashSet<>();
+        events.forEach(e -> types.add(e.getEventType().getName()));
+        assertTrue(types.containsAll(Set.of(
+            "io.github.absketches.plugin.ArtifactScan",
+            "io.github.absketches.plugin.DirectoryScan",
+            "io.github.absketches.plugin.BaseResolution",
+            "io.github.absketches.plugin.JsonMerge",
+            "io.github.absketches.plugin.OutputWrite")), types.toString());
+        RecordedEvent scan = events.stream().filter(e -> e.getEventType().getName().endsWith("ArtifactScan")).findFirst().orElseThrow();
+        assertEquals(jarPath.toString(), scan.getString("path"));
+        assertEquals(1, scan.getInt("classesParsed"));
+        assertFalse(scan.getBoolean("precompiled"));
+
+        // Summary is logged without verbose
+        assertTrue(log.infos.stream().anyMatch(msg -> msg.contains("2 headers from 1 artifacts (0 precompiled)") && msg.contains("resolve")), log.infos.toString());
     }
 
     @Test
-    void executeWritesReflectConfigWhenOnlyReflectedClassesProvided() throws Exception {
-        TestUtils.setField(plugin, "generateReflectConfig", true);
-        TestUtils.setField(plugin, "baseClasses", "com.example.Base");
-        TestUtils.setField(plugin, "reflectedClasses", "com.example.ManualOne,com.example.ManualTwo");
-        project.setArtifacts(new HashSet<>());
-
+    void executeWritesScanReportWithScanReasons() throws Exception {
+        Path classes = Path.of(project.getBuild().getOutputDirectory());
+        TestUtils.writeClassFile(classes, "com/example/LocalImpl", "com/base/Base", 0);
+        Path depDir = Files.createTempDirectory("report-jars");
+        Path scanned = TestUtils.createJar(depDir.resolve("scanned.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "com/base/Base", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Path precompiled = TestUtils.createJar(depDir.resolve("precompiled.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, CodegenConcreteClassPlugin.outputDir + "services.properties", "com.base.Base=com.pre.Impl".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        DefaultArtifact scannedArtifact = new DefaultArtifact("g", "scanned", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        scannedArtifact.setFile(scanned.toFile());
+        DefaultArtifact precompiledArtifact = new DefaultArtifact("g", "precompiled", "1", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        precompiledArtifact.setFile(precompiled.toFile());
+        project.setArtifacts(new LinkedHashSet<>(List.of(scannedArtifact, precompiledArtifact)));
+        project.getBuild().setDirectory(depDir.resolve("target").toString());
+
+        TestUtils.setField(plugin, "baseClasses", "com.base.Base");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "usePrecompiledLists", true);
+        TestUtils.setField(plugin, "writeScanReport", true);
         plugin.execute();
 
-        Path classes = Path.of(project.getBuild().getOutputDirectory());
-        Path reflectPath = classes
-                .resolve("META-INF/native-image")
-                .resolve(project.getGroupId())
-                .resolve(project.getArtifactId())
-                .resolve("reflect-config.json");
+        String report = Files.readString(depDir.resolve("target/codegen-svc-list-report.json"));
+        assertTrue(report.contains("\"path\":\"" + scanned + "\""), report);
+        assertTrue(report.contains("\"scanReason\":\"no precompiled index\""), report);
+        assertTrue(report.contains("\"precompiled\":true"), report);
+        assertTrue(report.contains("\"base\":\"com.base.Base\""), report);
+        assertTrue(report.contains("\"implementations\":3"), report);
 
-        assertTrue(Files.exists(reflectPath));
-        String json = Files.readString(reflectPath);
-        assertTrue(json.contains("com.example.ManualOne"));
-        assertTrue(json.contains("com.example.ManualTwo"));
+        // A reused Mojo instance reports the second run alone
+        plugin.execute();
+        String again = Files.readString(depDir.resolve("target/codegen-svc-list-report.json"));
+        assertEquals(1, again.split("\"path\":\"" + scanned + "\"", -1).length - 1, again);
     }
 
     @Test
@@ -306,24 +445,6 @@ class CodegenConcreteClassPluginTest {
         assertTrue(Files.notExists(reflectPath));
     }
 
-    @Test
-    void writeReflectConfigReturnsEarlyForEmptySet() throws Exception {
-        Method writeReflectConfig = CodegenConcreteClassPlugin.class.getDeclaredMethod("writeReflectConfig", Set.class, Path.class);
-        writeReflectConfig.setAccessible(true);
-
-        Path classes = Path.of(project.getBuild().getOutputDirectory());
-        Set<String> empty = Set.of();
-
-        writeReflectConfig.invoke(plugin, empty, classes);
-
-        Path reflectPath = classes
-                .resolve("META-INF/native-image")
-                .resolve(project.getGroupId())
-                .resolve(project.getArtifactId())
-                .resolve("reflect-config.json");
-        assertTrue(Files.notExists(reflectPath));
-    }
-
     @Test
     void logHonorsVerboseFlag() throws Exception {
         Method logMethod = CodegenConcreteClassPlugin.class.getDeclaredMethod("log", String.class, char.class);
@@ -0,0 +1,53 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcreteClassIndexCliTest {
+
+    @Test
+    void writesIndexAndReflectConfigWithoutMaven() throws Exception {
+        Path root = Files.createTempDirectory("cli");
+        Path classes = root.resolve("classes");
+        TestUtils.writeClassFile(classes, "com/example/LocalImpl", "com/base/Base", 0);
+        Path jar = TestUtils.createJar(root.resolve("dep.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "com/base/Base", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Path reflectConfig = root.resolve("reflect-config.json");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int exit = ConcreteClassIndexCli.run(new String[]{
+            "--classes=" + classes, "--classpath=" + jar, "--baseClasses=com.base.Base", "--reflectConfig=" + reflectConfig, "--scanReport=" + root.resolve("report.json")
+        }, new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(0, exit, err.toString(StandardCharsets.UTF_8));
+        assertEquals("com.base.Base=com.dep.DepImpl,com.example.LocalImpl\n", Files.readString(classes.resolve(ScanEngine.outputDir + "services.properties")));
+        assertTrue(Files.readString(reflectConfig).contains("com.dep.DepImpl"));
+        assertTrue(Files.exists(root.resolve("report.json")));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("2 headers from 1 artifacts"), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsMissingClassesDir() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int exit = ConcreteClassIndexCli.run(new String[]{"baseClasses"}, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(2, exit);
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Usage:"));
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexDaemonTest {
+
+    private final List<String> infos = new ArrayList<>();
+    private final ScanLog log = (msg, level) -> infos.add(msg);
+
+    @Test
+    void concurrentBuildsShareTheDaemonsHeaderTables() throws Exception {
+        Path root = Files.createTempDirectory("daemon");
+        Path jar = writeJar(root.resolve("dep.jar"), "com/dep/Impl");
+        Path socket = root.resolve("d.sock");
+
+        try (IndexDaemon daemon = new IndexDaemon(socket, 1 << 20, (msg, level) -> {}).start()) {
+            ScanOptions options = new ScanOptions().bases("com.base.Base").daemonSocket(socket);
+            ScanResult first = new ScanResult();
+            ScanResult second = new ScanResult();
+            new ScanEngine(options, log).prepareToScanJar(jar, first);
+            ArtifactScanStats stats = new ScanEngine(options, log).prepareToScanJar(jar, second);
+
+            assertEquals(1, daemon.misses());
+            assertEquals(1, daemon.hits());
+            assertEquals(first.headers, second.headers);
+            assertEquals(List.of("com/base/Base"), second.headers.get("com/dep/Impl").interfaces());
+            assertEquals("no precompiled index", stats.scanReason);
+            assertTrue(infos.stream().anyMatch(msg -> msg.contains("using index daemon")), infos.toString());
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+        }
+        assertTrue(Files.notExists(socket));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesOverTheByteBudget() throws Exception {
+        Path root = Files.createTempDirectory("daemon-evict");
+        Path socket = root.resolve("d.sock");
+        ScanOptions options = new ScanOptions().bases("com.base.Base").daemonSocket(socket);
+
+        try (IndexDaemon daemon = new IndexDaemon(socket, 1, (msg, level) -> {}).start()) {
+            ScanEngine engine = new ScanEngine(options, log);
+            engine.prepareToScanJar(writeJar(root.resolve("a.jar"), "com/a/Impl"), new ScanResult());
+            engine.prepareToScanJar(writeJar(root.resolve("b.jar"), "com/b/Impl"), new ScanResult());
+            engine.prepareToScanJar(root.resolve("a.jar"), new ScanResult());
+
+            assertEquals(1, daemon.size());
+            assertEquals(3, daemon.misses());
+            assertEquals(1, daemon.engines(), "Misses with the same options share one engine");
+        }
+    }
+
+    @Test
+    void fallsBackToInProcessScanWithoutDaemon() throws Exception {
+        Path root = Files.createTempDirectory("daemon-missing");
+        Path jar = writeJar(root.resolve("dep.jar"), "com/dep/Impl");
+        ScanEngine engine = new ScanEngine(new ScanOptions().bases("com.base.Base").daemonSocket(root.resolve("missing.sock")), log);
+
+        ScanResult result = new ScanResult();
+        engine.prepareToScanJar(jar, result);
+        engine.prepareToScanJar(jar, new ScanResult());
+
+        assertTrue(result.headers.containsKey("com/dep/Impl"));
+        assertEquals(1, infos.stream().filter(msg -> msg.contains("not reachable")).count(), "unreachable daemon is only tried once");
+    }
+
+    private static Path writeJar(final Path target, final String impl) throws IOException {
+        return TestUtils.createJar(target, jos -> {
+            try {
+                TestUtils.addEntry(jos, impl + ".class", TestUtils.buildClassBytes(impl, "java/lang/Object", 0, "com/base/Base"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
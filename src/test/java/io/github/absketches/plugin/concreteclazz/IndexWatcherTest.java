@@ -0,0 +1,100 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexWatcherTest {
+
+    private static final ScanLog NO_LOG = (msg, level) -> {};
+    private Path classes;
+    private Path outFile;
+    private IndexWatcher watcher;
+
+    @BeforeEach
+    void setup() throws IOException {
+        classes = Files.createTempDirectory("classes");
+        outFile = classes.resolve(ScanEngine.outputDir + "services.properties");
+        TestUtils.writeClassFile(classes, "com/api/Api", "java/lang/Object", 0x0600);
+        TestUtils.writeClassFile(classes, "com/app/ImplA", "java/lang/Object", 0, "com/api/Api");
+        Path jar = TestUtils.createJar(Files.createTempDirectory("deps").resolve("dep.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/DepImpl.class", TestUtils.buildClassBytes("com/dep/DepImpl", "java/lang/Object", 0, "com/api/Api"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        ScanEngine engine = new ScanEngine(new ScanOptions().bases("com.api.Api").artifactThreads(1), NO_LOG);
+        watcher = new IndexWatcher(engine, classes, List.of(jar), List.of(new PropertiesIndexWriter(outFile, NO_LOG)), NO_LOG);
+    }
+
+    @Test
+    void updatesOnlyChangedClasses() throws Exception {
+        watcher.start();
+        assertEquals("com.api.Api=com.app.ImplA,com.dep.DepImpl\n", Files.readString(outFile));
+
+        Path implB = TestUtils.writeClassFile(classes, "com/app/ImplB", "com/app/ImplA", 0);
+        assertTrue(watcher.update(Set.of(implB)));
+        assertEquals("com.api.Api=com.app.ImplA,com.app.ImplB,com.dep.DepImpl\n", Files.readString(outFile));
+
+        assertFalse(watcher.update(Set.of(implB)), "Same header should not rewrite the outputs");
+
+        // ImplB stays an implementation through its abstract super class
+        Path implA = TestUtils.writeClassFile(classes, "com/app/ImplA", "java/lang/Object", 0x0400, "com/api/Api");
+        assertTrue(watcher.update(Set.of(implA)));
+        assertEquals(Set.of("com/app/ImplB", "com/dep/DepImpl"), watcher.current().implementations().get("com/api/Api"));
+    }
+
+    @Test
+    void removesClassesOfDeletedFilesAndDirectories() throws Exception {
+        watcher.start();
+        TestUtils.writeClassFile(classes, "com/app/sub/ImplC", "java/lang/Object", 0, "com/api/Api");
+        assertTrue(watcher.update(Set.of(classes.resolve("com/app/sub"))));
+        assertTrue(watcher.current().implementations().get("com/api/Api").contains("com/app/sub/ImplC"));
+
+        Files.delete(classes.resolve("com/app/sub/ImplC.class"));
+        Files.delete(classes.resolve("com/app/sub"));
+        Files.delete(classes.resolve("com/app/ImplA.class"));
+        assertTrue(watcher.update(Set.of(classes.resolve("com/app/sub"), classes.resolve("com/app/ImplA.class"))));
+
+        assertEquals("com.api.Api=com.dep.DepImpl\n", Files.readString(outFile));
+    }
+
+    @Test
+    void watchPicksUpCompiledClasses() throws Exception {
+        watcher.start();
+        List<String> updates = new CopyOnWriteArrayList<>();
+        CountDownLatch registered = new CountDownLatch(1);
+        Thread thread = Thread.ofPlatform().daemon(true).start(() -> {
+            try {
+                watcher.watch(50, updates::add, registered::countDown);
+            } catch (IOException | InterruptedException ignored) {
+                // stopped by the test
+            }
+        });
+        try {
+            assertTrue(registered.await(10, TimeUnit.SECONDS));
+            TestUtils.writeClassFile(classes, "com/app/next/ImplD", "java/lang/Object", 0, "com/api/Api");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((updates.isEmpty() || !Files.readString(outFile).contains("com.app.next.ImplD")) && System.currentTimeMillis() < deadline)
+                Thread.sleep(20);
+            assertFalse(updates.isEmpty());
+            assertTrue(Files.readString(outFile).contains("com.app.next.ImplD"));
+        } finally {
+            thread.interrupt();
+            thread.join(5_000);
+        }
+    }
+}
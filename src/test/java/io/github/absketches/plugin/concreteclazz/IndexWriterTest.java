@@ -0,0 +1,90 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexWriterTest {
+
+    private static final ScanLog NO_LOG = (msg, level) -> {};
+
+    @Test
+    void propertiesWriterSkipsWhenContentUnchanged() throws Exception {
+        Path outFile = Files.createTempDirectory("classes").resolve(ScanEngine.outputDir + "services.properties");
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        result.put("com/example/Base", new TreeSet<>(Set.of("com/example/Impl")));
+        PropertiesIndexWriter writer = new PropertiesIndexWriter(outFile, NO_LOG);
+
+        writer.write(index(result, Set.of()));
+        String content = Files.readString(outFile);
+        long modified = Files.getLastModifiedTime(outFile).toMillis();
+
+        writer.write(index(result, Set.of()));
+
+        assertEquals("com.example.Base=com.example.Impl\n", content);
+        assertEquals("services.properties\n", Files.readString(outFile.resolveSibling(ClassFileUtils.INDEX_LISTING)));
+        assertEquals(content, Files.readString(outFile));
+        assertEquals(modified, Files.getLastModifiedTime(outFile).toMillis());
+    }
+
+    @Test
+    void propertiesWriterSkipsEmptyIndex() throws Exception {
+        Path outFile = Files.createTempDirectory("classes").resolve(ScanEngine.outputDir + "services.properties");
+
+        new PropertiesIndexWriter(outFile, NO_LOG).write(index(Map.of(), Set.of("com.example.Manual")));
+
+        assertTrue(Files.notExists(outFile));
+    }
+
+    @Test
+    void reflectConfigWriterMergesExistingContent() throws Exception {
+        Path reflectPath = Files.createTempDirectory("classes").resolve("META-INF/native-image/io.test/plugin/reflect-config.json");
+        Files.createDirectories(reflectPath.getParent());
+        Files.writeString(reflectPath, "[{\"name\":\"com.example.Existing\",\"allDeclaredConstructors\":false}]");
+
+        new ReflectConfigWriter(reflectPath, NO_LOG).write(index(Map.of(), new LinkedHashSet<>(List.of("com.example.Existing", "com.example.New"))));
+
+        String merged = Files.readString(reflectPath);
+        assertTrue(merged.contains("com.example.Existing"));
+        assertTrue(merged.contains("com.example.New"));
+        assertTrue(merged.contains("allDeclaredConstructors\":true"));
+    }
+
+    @Test
+    void reflectConfigWriterReturnsEarlyForEmptySet() throws Exception {
+        Path reflectPath = Files.createTempDirectory("classes").resolve("META-INF/native-image/io.test/plugin/reflect-config.json");
+
+        new ReflectConfigWriter(reflectPath, NO_LOG).write(index(Map.of(), Set.of()));
+
+        assertTrue(Files.notExists(reflectPath));
+    }
+
+    @Test
+    void reachabilityMetadataWriterConditionsImplementationsOnTheirBase() throws Exception {
+        Path metadataPath = Files.createTempDirectory("classes").resolve("META-INF/native-image/io.test/plugin/reachability-metadata.json");
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        result.put("com/example/Base", new TreeSet<>(Set.of("com/example/Impl", "com/example/Provided")));
+
+        new ReachabilityMetadataWriter(metadataPath, NO_LOG).write(index(result, new LinkedHashSet<>(List.of("com.example.Impl", "com.example.Manual"))));
+
+        String json = Files.readString(metadataPath);
+        assertTrue(json.contains("{\"condition\":{\"typeReached\":\"com.example.Base\"},\"type\":\"com.example.Impl\",\"allDeclaredConstructors\":true}"));
+        assertTrue(json.contains("{\"type\":\"com.example.Manual\",\"allDeclaredConstructors\":true}"));
+        assertFalse(json.contains("com.example.Provided"));
+    }
+
+    private static HierarchyIndex index(final Map<String, Set<String>> implementations, final Set<String> reflected) {
+        return new HierarchyIndex(implementations, reflected, new ScanResult(), List.of());
+    }
+}
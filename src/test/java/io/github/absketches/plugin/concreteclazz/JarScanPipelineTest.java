@@ -0,0 +1,104 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JarScanPipelineTest {
+
+    @Test
+    void matchesSequentialScanWithTinyByteBudget() throws Exception {
+        Path jarPath = Files.createTempDirectory("pipeline").resolve("many.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                for (int i = 0; i < 300; i++) {
+                    String name = "com/example/Impl" + i;
+                    TestUtils.addEntry(jos, name + ".class", TestUtils.buildClassBytes(name, "com/example/Base" + (i % 7), 0));
+                }
+                TestUtils.addEntry(jos, "META-INF/readme.txt", "not a class".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try (JarFile jf = new JarFile(jarPath.toFile())) {
+            List<JarEntry> entries = Collections.list(jf.entries()).stream().filter(e -> e.getName().endsWith(".class")).toList();
+
+            Map<String, ClassHeader> pipelined = new HashMap<>();
+            pipelined.put("com/example/Impl5", new ClassHeader(0, "com/earlier/Winner"));
+            new JarScanPipeline(4, 1).scan(jf, entries, Set.of(), false, pipelined);
+
+            assertEquals(300, pipelined.size());
+            assertEquals("com/earlier/Winner", pipelined.get("com/example/Impl5").superInternalName(), "First-wins must be kept");
+            assertEquals("com/example/Base6", pipelined.get("com/example/Impl6").superInternalName());
+        }
+    }
+
+    @Test
+    void sharesWorkersAndBudgetBetweenJarsScannedInParallel() throws Exception {
+        List<Path> jars = new ArrayList<>();
+        for (int j = 0; j < 4; j++) {
+            final int jar = j;
+            Path jarPath = TestUtils.createJar(Files.createTempDirectory("pipeline-shared").resolve("dep" + j + ".jar"), jos -> {
+                try {
+                    for (int i = 0; i < 200; i++)
+                        TestUtils.addEntry(jos, "com/dep" + jar + "/Impl" + i + ".class", TestUtils.buildClassBytes("com/dep" + jar + "/Impl" + i, "java/lang/Object", 0));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            jars.add(jarPath);
+        }
+
+        JarScanPipeline pipeline = new JarScanPipeline(2, 4096);
+        List<Map<String, ClassHeader>> results = jars.parallelStream().map(jarPath -> {
+            try (JarFile jf = new JarFile(jarPath.toFile())) {
+                Map<String, ClassHeader> headers = new HashMap<>();
+                pipeline.scan(jf, Collections.list(jf.entries()).stream().filter(e -> e.getName().endsWith(".class")).toList(), Set.of(), false, headers);
+                return headers;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toList();
+
+        results.forEach(headers -> assertEquals(200, headers.size()));
+        assertEquals(4096, pipeline.availableBytes());
+        assertTrue(pipeline.largestWorkerCount() <= 2, "workers are shared, found " + pipeline.largestWorkerCount());
+    }
+
+    @Test
+    void propagatesParseFailures() throws Exception {
+        Path jarPath = Files.createTempDirectory("pipeline-broken").resolve("broken.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/example/Good.class", TestUtils.buildClassBytes("com/example/Good", "java/lang/Object", 0));
+                TestUtils.addEntry(jos, "com/example/Bad.class", "not-a-class".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try (JarFile jf = new JarFile(jarPath.toFile())) {
+            List<JarEntry> entries = Collections.list(jf.entries());
+            JarScanPipeline pipeline = new JarScanPipeline(2, 1024);
+            IOException ex = assertThrows(IOException.class, () -> pipeline.scan(jf, entries, Set.of(), false, new HashMap<>()));
+            assertEquals("Corrupt stream - magic number missing", ex.getMessage());
+            assertEquals(1024, pipeline.availableBytes(), "A failed scan must give its whole budget back to the shared pipeline");
+        }
+    }
+}
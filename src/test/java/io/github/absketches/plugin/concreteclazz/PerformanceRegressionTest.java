@@ -0,0 +1,94 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import berlin.yuna.typemap.model.LinkedTypeMap;
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static berlin.yuna.typemap.logic.JsonDecoder.jsonMapOf;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the full Mojo against a generated 300 jar / 105k class classpath and asserts budgets.
+ * Only runs with the performance profile: mvn -Pperformance test
+ * Budgets can be tuned per machine with -Dperf.wallMillis=... -Dperf.allocatedMb=...
+ */
+@Tag("performance")
+class PerformanceRegressionTest {
+
+    private static final int JARS = 300;
+    private static final int CLASSES_PER_JAR = 350;
+    private static final int CHAIN_DEPTH = 25;
+    private static final int MODULE_CLASSES = 2_000;
+
+    private static final long WALL_MILLIS_BUDGET = Long.getLong("perf.wallMillis", 15_000);
+    private static final long ALLOCATED_MB_BUDGET = Long.getLong("perf.allocatedMb", 1_024);
+
+    private static Path root;
+    private static SyntheticClasspath classpath;
+
+    @BeforeAll
+    static void generate() throws Exception {
+        root = Files.createTempDirectory("perf-classpath");
+        classpath = SyntheticClasspath.generate(root, JARS, CLASSES_PER_JAR, CHAIN_DEPTH);
+        Path classes = root.resolve("classes");
+        for (int i = 0; i < MODULE_CLASSES; i++) {
+            TestUtils.writeClassFile(classes, "com/module/Impl" + i, i % 2 == 0 ? SyntheticClasspath.BASE : "com/module/Impl" + (i - 1), 0);
+        }
+    }
+
+    @Test
+    void fullExecuteStaysWithinBudgets() throws Exception {
+        CodegenConcreteClassPlugin plugin = newPlugin();
+        plugin.execute(); // Warm up class loading and JIT so the measured run reflects steady state
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        newPlugin().execute();
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        long allocatedMb = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) >> 20;
+
+        LinkedTypeMap report = jsonMapOf(Files.readString(root.resolve("target/codegen-svc-list-report.json")));
+        int headers = report.get(Integer.class, "headers");
+        String index = Files.readString(root.resolve("classes/" + CodegenConcreteClassPlugin.outputDir + "services.properties"));
+
+        assertTrue(wallMillis <= WALL_MILLIS_BUDGET, "wall time " + wallMillis + " ms > budget " + WALL_MILLIS_BUDGET + " ms");
+        assertTrue(allocatedMb <= ALLOCATED_MB_BUDGET, "allocated " + allocatedMb + " MB > budget " + ALLOCATED_MB_BUDGET + " MB");
+        // Jars with a complete precompiled index must not contribute headers
+        assertTrue(headers <= classpath.scannedClasses + MODULE_CLASSES,
+            "retained headers " + headers + " > scanned classes " + (classpath.scannedClasses + MODULE_CLASSES));
+        assertTrue(index.contains("com.module.Impl0") && index.contains("com.synthetic.dep0.Chain0_0"), "index misses implementations");
+        assertFalse(index.contains("com.synthetic.dep5.Chain0_0"), "dep5 chains end at java.lang.Object");
+    }
+
+    private static CodegenConcreteClassPlugin newPlugin() throws Exception {
+        MavenProject project = new MavenProject();
+        Build build = new Build();
+        build.setOutputDirectory(root.resolve("classes").toString());
+        build.setDirectory(root.resolve("target").toString());
+        project.setBuild(build);
+        project.setGroupId("io.perf");
+        project.setArtifactId("module");
+        project.setArtifacts(classpath.artifacts);
+
+        CodegenConcreteClassPlugin plugin = new CodegenConcreteClassPlugin();
+        plugin.setLog(new TestLog());
+        TestUtils.setField(plugin, "project", project);
+        TestUtils.setField(plugin, "baseClasses", "com.synthetic.api.Base,com.synthetic.api.OtherBase");
+        TestUtils.setField(plugin, "outputFile", "services.properties");
+        TestUtils.setField(plugin, "usePrecompiledLists", true);
+        TestUtils.setField(plugin, "generateReflectConfig", true);
+        TestUtils.setField(plugin, "writeScanReport", true);
+        // Maven's default, the allocation budget is read from the calling thread which then scans every jar
+        TestUtils.setField(plugin, "artifactThreads", 1);
+        return plugin;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanCacheTest {
+
+    private static final ScanLog NO_LOG = (msg, level) -> {};
+
+    @Test
+    void cachedScanMatchesDirectScanAndSurvivesBundleRoundTrip() throws Exception {
+        Path root = Files.createTempDirectory("scan-cache");
+        Path jar = writeJar(root.resolve("agent-a/dep.jar"));
+        Path cacheDir = root.resolve("cache");
+        ScanOptions options = new ScanOptions().bases("com.base.Base").annotations("com.example.Plugin").usePrecompiledLists(true).cacheDir(cacheDir);
+
+        ScanResult cold = new ScanResult();
+        ArtifactScanStats coldStats = new ScanEngine(options, NO_LOG).prepareToScanJar(jar, cold);
+        assertFalse(coldStats.cached);
+
+        // Another agent: same content at another path, cache restored from the bundle
+        Path bundle = root.resolve("pipeline-cache/scan-cache.bin.gz");
+        assertEquals(1, ScanCache.exportBundle(cacheDir, bundle));
+        Path restored = root.resolve("restored");
+        assertEquals(1, ScanCache.importBundle(bundle, restored));
+        assertEquals(0, ScanCache.importBundle(bundle, restored), "existing entries are kept");
+        Path copy = root.resolve("agent-b/dep.jar");
+        Files.createDirectories(copy.getParent());
+        Files.copy(jar, copy);
+
+        ScanResult warm = new ScanResult();
+        ArtifactScanStats warmStats = new ScanEngine(options.cacheDir(restored), NO_LOG).prepareToScanJar(copy, warm);
+
+        assertTrue(warmStats.cached);
+        assertEquals(coldStats.classesParsed, warmStats.classesParsed);
+        assertEquals(coldStats.scanReason, warmStats.scanReason);
+        assertEquals(cold.headers, warm.headers);
+        assertEquals(Set.of("com/example/Plugin"), warm.headers.get("com/dep/Annotated").annotations());
+        assertEquals(List.of("com/base/Base"), warm.headers.get("com/dep/Impl").interfaces());
+    }
+
+    @Test
+    void jarDigestIsRememberedUntilTheJarChanges() throws Exception {
+        Path root = Files.createTempDirectory("scan-cache-digest");
+        Path jar = writeJar(root.resolve("dep.jar"));
+        ScanCache cache = new ScanCache(root.resolve("cache"), new ScanOptions().bases("com.base.Base"));
+        assertEquals(ScanCache.sha256(jar), cache.digest(jar));
+
+        // A remembered digest is trusted as long as path, size and modification time match
+        Path memo;
+        try (Stream<Path> memos = Files.list(root.resolve("cache/digests"))) {
+            memo = memos.findFirst().orElseThrow();
+        }
+        String remembered = "0".repeat(64);
+        Files.writeString(memo, remembered);
+        assertEquals(remembered, cache.digest(jar));
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 60_000));
+        assertEquals(ScanCache.sha256(jar), cache.digest(jar));
+    }
+
+    @Test
+    void differentOptionsMissTheCache() throws Exception {
+        Path root = Files.createTempDirectory("scan-cache-options");
+        Path jar = writeJar(root.resolve("dep.jar"));
+        Path cacheDir = root.resolve("cache");
+
+        new ScanEngine(new ScanOptions().bases("com.base.Base").cacheDir(cacheDir), NO_LOG).prepareToScanJar(jar, new ScanResult());
+        ArtifactScanStats other = new ScanEngine(new ScanOptions().bases("com.base.Base").annotations("com.example.Plugin").cacheDir(cacheDir), NO_LOG)
+            .prepareToScanJar(jar, new ScanResult());
+
+        assertFalse(other.cached);
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(2, files.filter(f -> f.toString().endsWith(".scan")).count());
+        }
+    }
+
+    @Test
+    void unreadableEntryIsRescanned() throws Exception {
+        Path root = Files.createTempDirectory("scan-cache-corrupt");
+        Path jar = writeJar(root.resolve("dep.jar"));
+        Path cacheDir = root.resolve("cache");
+        ScanOptions options = new ScanOptions().bases("com.base.Base").cacheDir(cacheDir);
+        new ScanEngine(options, NO_LOG).prepareToScanJar(jar, new ScanResult());
+        try (var files = Files.list(cacheDir)) {
+            Files.writeString(files.filter(f -> f.toString().endsWith(".scan")).findFirst().orElseThrow(), "garbage");
+        }
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(options, NO_LOG).prepareToScanJar(jar, result);
+
+        assertFalse(stats.cached);
+        assertTrue(result.headers.containsKey("com/dep/Impl"));
+    }
+
+    @Test
+    void importRejectsForeignFiles() throws Exception {
+        Path root = Files.createTempDirectory("scan-cache-bundle");
+        Path bundle = root.resolve("bundle.gz");
+        Files.writeString(bundle, "not a bundle");
+
+        assertThrows(IOException.class, () -> ScanCache.importBundle(bundle, root.resolve("cache")));
+    }
+
+    private static Path writeJar(final Path target) throws IOException {
+        return TestUtils.createJar(target, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/dep/Impl.class", TestUtils.buildClassBytes("com/dep/Impl", "java/lang/Object", 0, "com/base/Base"));
+                TestUtils.addEntry(jos, "com/dep/Annotated.class", TestUtils.buildAnnotatedClassBytes("com/dep/Annotated", "java/lang/Object", 0, "com/example/Plugin"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,428 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanEngineTest {
+
+    private final List<String> errors = new ArrayList<>();
+    private final ScanLog log = (msg, level) -> {
+        if ('E' == level) errors.add(msg);
+    };
+    private Path classes;
+
+    @BeforeEach
+    void setup() throws IOException {
+        classes = Files.createTempDirectory("classes");
+    }
+
+    @Test
+    void scanDirectoryCollectsHeaders() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/Impl", "java/lang/Object", 0);
+
+        Map<String, ClassHeader> headers = new HashMap<>();
+        new ScanEngine(new ScanOptions(), log).scanDirectory(classes, headers);
+
+        assertEquals(1, headers.size());
+        assertEquals("java/lang/Object", headers.get("com/example/Impl").superInternalName());
+    }
+
+    @Test
+    void prepareToScanJarUsesPrecompiledPropertiesWhenAllBasesPresent() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-precompiled").resolve("precompiled.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                String props = "com.example.Base=com.example.ImplOne,com.example.ImplTwo";
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", props.getBytes());
+                TestUtils.addEntry(jos, "com/example/ImplOne.class", TestUtils.buildClassBytes("com/example/ImplOne", "java/lang/Object", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Base"), log).prepareToScanJar(jarPath, result);
+
+        assertTrue(stats.precompiled);
+        assertTrue(result.headers.isEmpty(), "Should skip scanning classes when properties are complete");
+        assertEquals(Set.of("com/example/ImplOne", "com/example/ImplTwo"), result.precompiled.get("com/example/Base"));
+    }
+
+    @Test
+    void prepareToScanJarFindsListedPrecompiledFilesByName() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-listing").resolve("listed.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, ScanEngine.outputDir + ClassFileUtils.INDEX_LISTING, "services.properties\n".getBytes());
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", "com.example.Base=com.example.Listed".getBytes());
+                // Not listed, so never read
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "other.properties", "com.example.Base=com.example.Unlisted".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Base"), log).prepareToScanJar(jarPath, result);
+
+        assertTrue(stats.precompiled);
+        assertEquals(Set.of("com/example/Listed"), result.precompiled.get("com/example/Base"));
+    }
+
+    @Test
+    void prepareToScanJarReadsAnIncompleteListingOnce() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-listing-partial").resolve("partial.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, ScanEngine.outputDir + ClassFileUtils.INDEX_LISTING, "services.properties\n".getBytes());
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", "com.example.Base=com.example.Listed".getBytes());
+                TestUtils.addEntry(jos, "com/example/Scanned.class", TestUtils.buildClassBytes("com/example/Scanned", "com/example/Other", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        List<String> messages = new ArrayList<>();
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Base,com.example.Other"), (msg, level) -> messages.add(msg)).prepareToScanJar(jarPath, result);
+
+        assertEquals("precompiled index incomplete", stats.scanReason);
+        assertTrue(result.headers.containsKey("com/example/Scanned"));
+        assertEquals(1, messages.stream().filter(m -> m.contains("missing entries")).count(), String.valueOf(messages));
+    }
+
+    @Test
+    void prepareToScanJarIgnoresListingOfMissingFiles() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-listing-stale").resolve("stale.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, ScanEngine.outputDir + ClassFileUtils.INDEX_LISTING, "gone.properties\n".getBytes());
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", "com.example.Base=com.example.Found".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Base"), log).prepareToScanJar(jarPath, result);
+
+        assertTrue(stats.precompiled);
+        assertEquals(Set.of("com/example/Found"), result.precompiled.get("com/example/Base"));
+    }
+
+    @Test
+    void prepareToScanJarScansWhenPrecompiledEntriesMissing() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-precompiled-missing").resolve("scan.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", "com.example.Other=impl.One".getBytes());
+                TestUtils.addEntry(jos, "com/example/Scanned.class", TestUtils.buildClassBytes("com/example/Scanned", "java/lang/Object", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Missing"), log).prepareToScanJar(jarPath, result);
+
+        assertTrue(result.headers.containsKey("com/example/Scanned"), "Should scan classes when precompiled entries are incomplete");
+        assertTrue(result.precompiled.isEmpty());
+        assertEquals("no precompiled index", stats.scanReason);
+    }
+
+    @Test
+    void prepareToScanJarFallsBackToScanningClasses() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-scan").resolve("scan.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/example/JarImpl.class", TestUtils.buildClassBytes("com/example/JarImpl", "java/lang/Object", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        new ScanEngine(new ScanOptions().bases("com.example.Base").usePrecompiledLists(false), log).prepareToScanJar(jarPath, result);
+
+        assertEquals(1, result.headers.size());
+        assertTrue(result.headers.containsKey("com/example/JarImpl"));
+    }
+
+    @Test
+    void prepareToScanJarUsesPipelineForLargeJars() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-pipeline").resolve("large.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                for (int i = 0; i < 50; i++) {
+                    TestUtils.addEntry(jos, "com/example/Impl" + i + ".class", TestUtils.buildClassBytes("com/example/Impl" + i, "com/example/Base", 0));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanOptions options = new ScanOptions().bases("com.example.Base").pipelineThreshold(10).scanThreads(3).maxBytesInFlight(256L);
+        ScanResult result = new ScanResult();
+        new ScanEngine(options, log).prepareToScanJar(jarPath, result);
+
+        assertEquals(50, result.headers.size());
+        assertEquals("com/example/Base", result.headers.get("com/example/Impl49").superInternalName());
+    }
+
+    @Test
+    void prepareToScanJarReadsNestedJarsWithoutExtraction() throws Exception {
+        Path root = Files.createTempDirectory("jar-nested");
+        byte[] stored = Files.readAllBytes(TestUtils.createJar(root.resolve("stored.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/lib/StoredImpl.class", TestUtils.buildClassBytes("com/lib/StoredImpl", "com/example/Base", 0));
+                TestUtils.addEntry(jos, "com/app/AppImpl.class", TestUtils.buildClassBytes("com/app/AppImpl", "com/lib/Shadowed", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        byte[] deflated = Files.readAllBytes(TestUtils.createJar(root.resolve("deflated.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/lib/DeflatedImpl.class", TestUtils.buildClassBytes("com/lib/DeflatedImpl", "com/example/Base", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        Path bootJar = TestUtils.createJar(root.resolve("app.jar"), jos -> {
+            try {
+                TestUtils.addEntry(jos, "BOOT-INF/classes/com/app/AppImpl.class", TestUtils.buildClassBytes("com/app/AppImpl", "com/example/Base", 0));
+                TestUtils.addStoredEntry(jos, "BOOT-INF/lib/stored.jar", stored);
+                TestUtils.addEntry(jos, "BOOT-INF/lib/deflated.jar", deflated);
+                TestUtils.addEntry(jos, "BOOT-INF/lib/nested/ignored.jar", deflated);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.example.Base"), log).prepareToScanJar(bootJar, result);
+
+        assertEquals(Set.of("com/app/AppImpl", "com/lib/StoredImpl", "com/lib/DeflatedImpl"), result.headers.keySet());
+        assertEquals("com/example/Base", result.headers.get("com/app/AppImpl").superInternalName(), "outer classes win");
+        assertEquals(4, stats.classesParsed);
+    }
+
+    @Test
+    void prepareToScanJarPicksTheMultiReleaseVersionOfTheTargetRelease() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-mr").resolve("mr.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\nMulti-Release: true\r\n\r\n".getBytes());
+                TestUtils.addEntry(jos, "META-INF/versions/11/com/mr/Impl.class", TestUtils.buildClassBytes("com/mr/Impl", "java/lang/Object", 0, "com/mr/Api"));
+                TestUtils.addEntry(jos, "META-INF/versions/25/com/mr/Impl.class", TestUtils.buildClassBytes("com/mr/Impl", "com/mr/Newer", 0));
+                TestUtils.addEntry(jos, "META-INF/versions/17/com/mr/Only.class", TestUtils.buildClassBytes("com/mr/Only", "java/lang/Object", 0));
+                TestUtils.addEntry(jos, "META-INF/versions/9/module-info.class", new byte[]{1, 2, 3});
+                TestUtils.addEntry(jos, "module-info.class", new byte[]{1, 2, 3});
+                TestUtils.addEntry(jos, "com/mr/package-info.class", new byte[]{1, 2, 3});
+                TestUtils.addEntry(jos, "com/mr/Impl.class", TestUtils.buildClassBytes("com/mr/Impl", "java/lang/Object", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        ArtifactScanStats stats = new ScanEngine(new ScanOptions().bases("com.mr.Api").release(21), log).prepareToScanJar(jarPath, result);
+
+        assertEquals(Set.of("com/mr/Impl", "com/mr/Only"), result.headers.keySet());
+        assertEquals(List.of("com/mr/Api"), result.headers.get("com/mr/Impl").interfaces());
+        assertEquals(2, stats.classesParsed);
+    }
+
+    @Test
+    void prepareToScanJarIgnoresVersionedEntriesOfPlainJars() throws Exception {
+        Path jarPath = Files.createTempDirectory("jar-plain").resolve("plain.jar");
+        TestUtils.createJar(jarPath, jos -> {
+            try {
+                TestUtils.addEntry(jos, "META-INF/versions/11/com/mr/Impl.class", TestUtils.buildClassBytes("com/mr/Impl", "java/lang/Object", 0, "com/mr/Api"));
+                TestUtils.addEntry(jos, "com/mr/Impl.class", TestUtils.buildClassBytes("com/mr/Impl", "java/lang/Object", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanResult result = new ScanResult();
+        new ScanEngine(new ScanOptions().bases("com.mr.Api").release(21), log).prepareToScanJar(jarPath, result);
+
+        assertEquals(Set.of("com/mr/Impl"), result.headers.keySet());
+        assertTrue(result.headers.get("com/mr/Impl").interfaces().isEmpty());
+    }
+
+    @Test
+    void parallelScanMergesInArtifactOrderAndRecordsHistory() throws Exception {
+        Path root = Files.createTempDirectory("parallel-artifacts");
+        List<Path> jars = new ArrayList<>();
+        for (int j = 0; j < 6; j++) {
+            final int n = j;
+            jars.add(TestUtils.createJar(root.resolve("dep" + j + ".jar"), jos -> {
+                try {
+                    // Every jar has its own copy of Shared, the first artifact must win
+                    TestUtils.addEntry(jos, "com/dep/Shared.class", TestUtils.buildClassBytes("com/dep/Shared", "com/dep/Super" + n, 0));
+                    for (int i = 0; i < n * 20; i++)
+                        TestUtils.addEntry(jos, "com/dep" + n + "/Impl" + i + ".class", TestUtils.buildClassBytes("com/dep" + n + "/Impl" + i, "java/lang/Object", 0));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        Path historyFile = root.resolve("history.properties");
+        ScanOptions options = new ScanOptions().bases("com.example.Base").artifactThreads(4).historyFile(historyFile);
+
+        ScanResult result = new ScanEngine(options, log).scan(classes, jars);
+
+        assertEquals("com/dep/Super0", result.headers.get("com/dep/Shared").superInternalName());
+        assertEquals(jars.stream().map(Path::toString).toList(), result.artifactStats.stream().map(a -> a.path).toList());
+        assertEquals(1 + 20 * 15, result.headerCount());
+        String history = Files.readString(historyFile);
+        assertTrue(jars.stream().allMatch(jar -> history.contains(jar.getFileName().toString())), history);
+    }
+
+    @Test
+    void scanLogsAndSkipsBrokenJars() throws Exception {
+        Path brokenJar = Files.createTempDirectory("artifact-error").resolve("broken.jar");
+        Files.writeString(brokenJar, "corrupt");
+
+        ScanResult result = new ScanEngine(new ScanOptions().bases("com.example.Base"), log).scan(classes, List.of(brokenJar));
+
+        assertEquals(0, result.headerCount());
+        assertEquals(0, result.artifactCount());
+        assertTrue(errors.stream().anyMatch(msg -> msg.contains("Jar scan failed")), errors.toString());
+    }
+
+    @Test
+    void scanSkipsEverythingWithoutBasesOrAnnotations() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/Impl", "java/lang/Object", 0);
+
+        ScanResult result = new ScanEngine(new ScanOptions(), log).scan(classes, List.of());
+
+        assertEquals(0, result.headerCount());
+    }
+
+    @Test
+    void resolveCollectsImplementationsAndReflectedClasses() throws Exception {
+        TestUtils.writeClassFile(classes, "com/base/Base", "java/lang/Object", 0x0400);
+        TestUtils.writeClassFile(classes, "com/example/Impl", "com/base/Base", 0);
+        TestUtils.writeClassFile(classes, "com/example/Other", "java/lang/Object", 0);
+
+        ScanEngine engine = new ScanEngine(new ScanOptions().bases("com.base.Base").reflectedClasses("com.example.Manual"), log);
+        HierarchyIndex index = engine.resolve(engine.scan(classes, List.of()));
+
+        assertEquals(Map.of("com/base/Base", Set.of("com/example/Impl")), index.implementations());
+        assertEquals(Set.of("com.example.Impl", "com.example.Manual"), index.reflectedClasses());
+        assertEquals(3, index.headerCount());
+        assertTrue(index.summary().contains("3 headers from 0 artifacts"), index.summary());
+    }
+
+    @Test
+    void deltaIndexLeavesPrecompiledImplementationsToTheirJars() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/Own", "com/base/Base", 0);
+        Path indexed = Files.createTempDirectory("jar-delta").resolve("indexed.jar");
+        TestUtils.createJar(indexed, jos -> {
+            try {
+                TestUtils.addEntry(jos, ScanEngine.outputDir + "services.properties", "com.base.Base=com.upstream.Listed".getBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Path plain = indexed.resolveSibling("plain.jar");
+        TestUtils.createJar(plain, jos -> {
+            try {
+                TestUtils.addEntry(jos, "com/thirdparty/Scanned.class", TestUtils.buildClassBytes("com/thirdparty/Scanned", "com/base/Base", 0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ScanEngine full = new ScanEngine(new ScanOptions().bases("com.base.Base"), log);
+        assertEquals(Set.of("com/example/Own", "com/thirdparty/Scanned", "com/upstream/Listed"),
+            full.resolve(full.scan(classes, List.of(indexed, plain))).implementations().get("com/base/Base"));
+
+        ScanEngine delta = new ScanEngine(new ScanOptions().bases("com.base.Base").deltaIndex(true), log);
+        HierarchyIndex index = delta.resolve(delta.scan(classes, List.of(indexed, plain)));
+        assertEquals(Set.of("com/example/Own", "com/thirdparty/Scanned"), index.implementations().get("com/base/Base"));
+        assertEquals(Set.of("com.example.Own", "com.thirdparty.Scanned"), index.reflectedClasses());
+    }
+
+    @Test
+    void excludesSyntheticAnonymousLocalAndNonPublicNestedClasses() throws Exception {
+        TestUtils.writeClassFile(classes, "com/base/Base", "java/lang/Object", 0x0400);
+        TestUtils.writeClassFile(classes, "com/example/Generated", "com/base/Base", 0x1000);
+        Files.write(classes.resolve("com/example/Outer$1.class"), TestUtils.buildNestedClassBytes("com/example/Outer$1", "com/base/Base", 0, null, null, 0, true));
+        Files.write(classes.resolve("com/example/Outer$Hidden.class"), TestUtils.buildNestedClassBytes("com/example/Outer$Hidden", "com/base/Base", 0, "com/example/Outer", "Hidden", 0x0008, false));
+        TestUtils.writeClassFile(classes, "com/example/Visible", "com/example/Outer$Hidden", 0x0001);
+
+        ScanEngine engine = new ScanEngine(new ScanOptions().bases("com.base.Base").excludeSynthetic(true).excludeNonPublicNested(true), log);
+        ScanResult scan = engine.scan(classes, List.of());
+        assertEquals(Set.of("com/base/Base", "com/example/Outer$Hidden", "com/example/Visible"), scan.headers.keySet());
+        assertEquals(Set.of("com/example/Visible"), engine.resolve(scan).implementations().get("com/base/Base"), "Non-public nested classes still link their subclasses");
+
+        ScanEngine all = new ScanEngine(new ScanOptions().bases("com.base.Base"), log);
+        assertEquals(Set.of("com/example/Generated", "com/example/Outer$1", "com/example/Outer$Hidden", "com/example/Visible"),
+            all.resolve(all.scan(classes, List.of())).implementations().get("com/base/Base"));
+    }
+
+    @Test
+    void resolvesChainsThroughJdkClassesFromThePlatformSnapshot() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/MyList", "java/util/AbstractList", 0);
+        Path snapshots = Files.createTempDirectory("platform");
+        ScanOptions options = new ScanOptions().bases("java.util.AbstractCollection,java.util.Collection").platformSnapshotDir(snapshots);
+
+        ScanEngine engine = new ScanEngine(options, log);
+        HierarchyIndex index = engine.resolve(engine.scan(classes, List.of()));
+
+        assertEquals(Set.of("com/example/MyList"), index.implementations().get("java/util/AbstractCollection"));
+        assertEquals(Set.of("com/example/MyList"), index.implementations().get("java/util/Collection"));
+        try (var files = Files.list(snapshots)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().endsWith(".snapshot")).count());
+        }
+        assertTrue(new ScanEngine(new ScanOptions().bases("java.util.AbstractCollection"), log).resolve(engine.scan(classes, List.of()))
+            .implementations().get("java/util/AbstractCollection").isEmpty(), "Without a snapshot the chain ends at the JDK class");
+    }
+
+    @Test
+    void resolvesJdkChainsAgainstTheTargetRelease() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/MyList", "java/util/AbstractList", 0);
+        Path snapshots = Files.createTempDirectory("platform-release");
+        String sequenced = "java.util.SequencedCollection"; // Added in 21
+
+        ScanEngine current = new ScanEngine(new ScanOptions().bases(sequenced).release(21).platformSnapshotDir(snapshots), log);
+        assertEquals(Set.of("com/example/MyList"), current.resolve(current.scan(classes, List.of())).implementations().get("java/util/SequencedCollection"));
+
+        ScanEngine older = new ScanEngine(new ScanOptions().bases(sequenced + ",java.util.Collection").release(17).platformSnapshotDir(snapshots), log);
+        HierarchyIndex index = older.resolve(older.scan(classes, List.of()));
+        assertTrue(index.implementations().get("java/util/SequencedCollection").isEmpty(), "Release 17 has no SequencedCollection");
+        assertEquals(Set.of("com/example/MyList"), index.implementations().get("java/util/Collection"));
+        try (var files = Files.list(snapshots)) {
+            assertEquals(Set.of("platform-17", "platform-21"), files.map(f -> f.getFileName().toString().substring(0, 11)).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void runPassesTheIndexToEachWriterInOrder() throws Exception {
+        TestUtils.writeClassFile(classes, "com/example/Impl", "com/base/Base", 0);
+        List<String> written = new ArrayList<>();
+        IndexWriter first = index -> written.add("first " + index.implementations().get("com/base/Base"));
+        IndexWriter second = index -> written.add("second " + index.reflectedClasses());
+
+        HierarchyIndex index = new ScanEngine(new ScanOptions().bases("com.base.Base"), log).run(classes, List.of(), List.of(first, second));
+
+        assertEquals(List.of("first [com/example/Impl]", "second [com.example.Impl]"), written);
+        assertTrue(index.summary().contains("resolve"), index.summary());
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ScanHistoryTest {
+
+    private static final ScanLog NO_LOG = (msg, level) -> {};
+
+    @Test
+    void ordersBySizeWithoutHistory() throws Exception {
+        Path dir = Files.createTempDirectory("history-size");
+        List<Path> jars = List.of(file(dir, "small.jar", 10), file(dir, "large.jar", 1000), file(dir, "medium.jar", 100));
+
+        assertArrayEquals(new int[]{1, 2, 0}, ScanHistory.load(dir.resolve("missing.properties"), NO_LOG).longestFirst(jars));
+    }
+
+    @Test
+    void recordedCostsWinAndScaleUnknownSizes() throws Exception {
+        Path dir = Files.createTempDirectory("history-cost");
+        Path historyFile = dir.resolve("history.properties");
+        Path slowSmall = file(dir, "shaded-but-small.jar", 100);
+        Path fastLarge = file(dir, "precompiled-large.jar", 1000);
+        Path unknown = file(dir, "new.jar", 500);
+
+        ScanHistory history = ScanHistory.load(historyFile, NO_LOG);
+        history.record(slowSmall.toString(), 9_000_000);
+        history.record(fastLarge.toString(), 1_000);
+        history.save();
+
+        // new.jar is estimated at 500 bytes * ~8182 ns/byte, between the two known artifacts
+        assertArrayEquals(new int[]{2, 1, 0}, ScanHistory.load(historyFile, NO_LOG).longestFirst(List.of(fastLarge, unknown, slowSmall)));
+    }
+
+    @Test
+    void unreadableHistoryIsEmpty() throws Exception {
+        Path dir = Files.createTempDirectory("history-broken");
+        Path historyFile = dir.resolve("history.properties");
+        Files.writeString(historyFile, "\\u00zz=broken");
+        List<Path> jars = List.of(file(dir, "a.jar", 1), file(dir, "b.jar", 2));
+
+        assertArrayEquals(new int[]{1, 0}, ScanHistory.load(historyFile, NO_LOG).longestFirst(jars));
+    }
+
+    private static Path file(final Path dir, final String name, final int size) throws Exception {
+        return Files.write(dir.resolve(name), new byte[size]);
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import berlin.yuna.typemap.model.LinkedTypeMap;
+import berlin.yuna.typemap.model.TypeList;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static berlin.yuna.typemap.logic.JsonDecoder.jsonMapOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanReportTest {
+
+    @Test
+    void sortsArtifactsAndBasesByCost() {
+        ArtifactScanStats cheap = new ArtifactScanStats("cheap.jar");
+        cheap.precompiled = true;
+        cheap.entries = 10;
+        cheap.nanos = 2_000;
+        ArtifactScanStats expensive = new ArtifactScanStats("shaded.jar");
+        expensive.scanReason = "no precompiled index";
+        expensive.entries = 80_000;
+        expensive.classesParsed = 79_000;
+        expensive.uncompressedBytes = 123_456;
+        expensive.nanos = 9_000_000;
+
+        String json = ScanReport.toJson(List.of(cheap, expensive),
+            List.of(new ScanReport.Resolution("com/a/Fast", 1, 1_000), new ScanReport.Resolution("com/a/Slow", 7, 5_000)), 79_001, 10_000_000);
+
+        LinkedTypeMap report = jsonMapOf(json);
+        assertEquals(79_001, report.get(Integer.class, "headers"));
+        assertEquals(10_000L, report.get(Long.class, "wallMicros"));
+
+        TypeList artifacts = report.get(TypeList.class, "artifacts");
+        assertEquals("shaded.jar", artifacts.get(String.class, 0, "path"));
+        assertEquals("no precompiled index", artifacts.get(String.class, 0, "scanReason"));
+        assertEquals(79_000, artifacts.get(Integer.class, 0, "classesParsed"));
+        assertEquals(9_000L, artifacts.get(Long.class, 0, "wallMicros"));
+        assertEquals("cheap.jar", artifacts.get(String.class, 1, "path"));
+        assertTrue(artifacts.get(Boolean.class, 1, "precompiled"));
+        assertFalse(json.contains("\"scanReason\":null"));
+
+        TypeList bases = report.get(TypeList.class, "bases");
+        assertEquals("com.a.Slow", bases.get(String.class, 0, "base"));
+        assertEquals(7, bases.get(Integer.class, 0, "implementations"));
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.absketches.plugin.concreteclazz;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Generates a realistic classpath on disk from TestUtils class files: many jars, deep super chains with abstract
+ * intermediates, unrelated classes and a share of jars shipping a (complete or partial) precompiled index.
+ */
+final class SyntheticClasspath {
+
+    static final String BASE = "com/synthetic/api/Base";
+    static final String OTHER_BASE = "com/synthetic/api/OtherBase";
+
+    final Set<Artifact> artifacts = new LinkedHashSet<>();
+    int scannedClasses;     // Classes in jars that must be scanned
+    int precompiledJars;    // Jars whose precompiled index covers both bases
+
+    private SyntheticClasspath() {}
+
+    /**
+     * @param jars          number of dependency jars
+     * @param classesPerJar class files per jar
+     * @param chainDepth    length of the super chains inside each jar, every third link is abstract
+     */
+    static SyntheticClasspath generate(final Path root, final int jars, final int classesPerJar, final int chainDepth) throws IOException {
+        final SyntheticClasspath cp = new SyntheticClasspath();
+        for (int j = 0; j < jars; j++) {
+            final int jarIdx = j;
+            final String pkg = "com/synthetic/dep" + j + "/";
+            // 1/3 complete precompiled index, 1/3 partial (missing OtherBase), 1/3 none
+            final int precompiledKind = j % 3;
+            final Path jarPath = TestUtils.createJar(root.resolve("repo/dep" + j + ".jar"), jos -> {
+                try {
+                    if (precompiledKind == 0) {
+                        TestUtils.addEntry(jos, CodegenConcreteClassPlugin.outputDir + "services.properties",
+                            (ClassFileUtils.toDotted(BASE) + "=" + ClassFileUtils.toDotted(pkg) + "Chain0_0\n"
+                                + ClassFileUtils.toDotted(OTHER_BASE) + "=\n").getBytes());
+                    } else if (precompiledKind == 1) {
+                        TestUtils.addEntry(jos, CodegenConcreteClassPlugin.outputDir + "services.properties",
+                            (ClassFileUtils.toDotted(BASE) + "=" + ClassFileUtils.toDotted(pkg) + "Chain0_0\n").getBytes());
+                    }
+                    for (int i = 0; i < classesPerJar; i++) {
+                        final int chain = i / chainDepth;
+                        final int link = i % chainDepth;
+                        final String name = pkg + "Chain" + chain + "_" + link;
+                        final String superName = link == chainDepth - 1
+                            ? (jarIdx % 2 == 0 ? BASE : "java/lang/Object")
+                            : pkg + "Chain" + chain + "_" + (link + 1);
+                        final int access = link % 3 == 2 ? 0x0400 : 0;
+                        TestUtils.addEntry(jos, name + ".class", TestUtils.buildClassBytes(name, superName, access));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            final DefaultArtifact artifact = new DefaultArtifact("com.synthetic", "dep" + j, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+            artifact.setFile(jarPath.toFile());
+            cp.artifacts.add(artifact);
+            if (precompiledKind == 0)
+                cp.precompiledJars++;
+            else
+                cp.scannedClasses += classesPerJar;
+        }
+        return cp;
+    }
+}
@@ -9,12 +9,18 @@ import java.nio.file.Path;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 
 final class TestUtils {
 
     private TestUtils() {}
 
     static byte[] buildClassBytes(final String classNameInternal, final String superNameInternal, final int accessFlags) throws IOException {
+        return buildClassBytes(classNameInternal, superNameInternal, accessFlags, new String[0]);
+    }
+
+    static byte[] buildClassBytes(final String classNameInternal, final String superNameInternal, final int accessFlags, final String... interfaces) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (DataOutputStream out = new DataOutputStream(baos)) {
             out.writeInt(0xCAFEBABE);
@@ -22,7 +28,7 @@ final class TestUtils {
             out.writeShort(61); // major
 
             boolean hasSuper = superNameInternal != null;
-            int cpCount = hasSuper ? 5 : 3;
+            int cpCount = (hasSuper ? 5 : 3) + interfaces.length * 2;
             out.writeShort(cpCount);
 
             // #1 class name Utf8
@@ -42,11 +48,23 @@ final class TestUtils {
                 out.writeShort(3);
             }
 
+            // Utf8 + Class pair per interface
+            int firstItf = hasSuper ? 5 : 3;
+            for (int i = 0; i < interfaces.length; i++) {
+                out.writeByte(1);
+                out.writeUTF(interfaces[i]);
+                out.writeByte(7);
+                out.writeShort(firstItf + i * 2);
+            }
+
             out.writeShort(accessFlags);
             out.writeShort(2); // this_class
             out.writeShort(hasSuper ? 4 : 0); // super_class
 
-            out.writeShort(0); // interfaces_count
+            out.writeShort(interfaces.length); // interfaces_count
+            for (int i = 0; i < interfaces.length; i++) {
+                out.writeShort(firstItf + i * 2 + 1);
+            }
             out.writeShort(0); // fields_count
             out.writeShort(0); // methods_count
             out.writeShort(0); // attributes_count
@@ -54,10 +72,133 @@ final class TestUtils {
         return baos.toByteArray();
     }
 
-    static Path writeClassFile(final Path root, final String internalName, final String superName, final int accessFlags) throws IOException {
+    // Nested class with its own InnerClasses entry: outer null for local / anonymous, simpleName null for anonymous
+    static byte[] buildNestedClassBytes(final String classNameInternal, final String superNameInternal, final int accessFlags, final String outer, final String simpleName, final int innerAccess, final boolean enclosingMethod) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor
+            out.writeShort(61); // major
+
+            // #1..#4 this/super, #5 #6 attribute names, #7 #8 enclosing class, #9 simple name
+            out.writeShort(10);
+            out.writeByte(1);
+            out.writeUTF(classNameInternal);
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF(superNameInternal);
+            out.writeByte(7);
+            out.writeShort(3);
+            out.writeByte(1);
+            out.writeUTF("InnerClasses");
+            out.writeByte(1);
+            out.writeUTF("EnclosingMethod");
+            out.writeByte(1);
+            out.writeUTF(null != outer ? outer : classNameInternal.substring(0, classNameInternal.indexOf('$')));
+            out.writeByte(7);
+            out.writeShort(7);
+            out.writeByte(1);
+            out.writeUTF(null != simpleName ? simpleName : "unused");
+
+            out.writeShort(accessFlags);
+            out.writeShort(2); // this_class
+            out.writeShort(4); // super_class
+            out.writeShort(0); // interfaces_count
+            out.writeShort(0); // fields_count
+            out.writeShort(0); // methods_count
+
+            out.writeShort(enclosingMethod ? 2 : 1); // attributes_count
+            out.writeShort(5);
+            out.writeInt(10);
+            out.writeShort(1); // number_of_classes
+            out.writeShort(2);
+            out.writeShort(null != outer ? 8 : 0);
+            out.writeShort(null != simpleName ? 9 : 0);
+            out.writeShort(innerAccess);
+            if (enclosingMethod) {
+                out.writeShort(6);
+                out.writeInt(4);
+                out.writeShort(8); // class_index
+                out.writeShort(0); // method_index, 0 for initializers
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    // Class with one field, one method (both carrying an attribute) and a RuntimeVisibleAnnotations class attribute
+    static byte[] buildAnnotatedClassBytes(final String classNameInternal, final String superNameInternal, final int accessFlags, final String... annotationTypes) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor
+            out.writeShort(61); // major
+
+            // #1..#4 this/super, #5 attribute name, #6 element name, #7 long const (2 slots), #9.. annotation descriptors
+            out.writeShort(9 + annotationTypes.length);
+            out.writeByte(1);
+            out.writeUTF(classNameInternal);
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF(superNameInternal);
+            out.writeByte(7);
+            out.writeShort(3);
+            out.writeByte(1);
+            out.writeUTF("RuntimeVisibleAnnotations");
+            out.writeByte(1);
+            out.writeUTF("value");
+            out.writeByte(5);
+            out.writeLong(42L);
+            for (String annotation : annotationTypes) {
+                out.writeByte(1);
+                out.writeUTF("L" + annotation + ";");
+            }
+
+            out.writeShort(accessFlags);
+            out.writeShort(2); // this_class
+            out.writeShort(4); // super_class
+            out.writeShort(0); // interfaces_count
+
+            for (int member = 0; member < 2; member++) { // one field, one method
+                out.writeShort(1);
+                out.writeShort(0x0001);
+                out.writeShort(6);
+                out.writeShort(6);
+                out.writeShort(1); // attributes_count
+                out.writeShort(6);
+                out.writeInt(3);
+                out.write(new byte[]{1, 2, 3});
+            }
+
+            out.writeShort(1); // class attributes_count
+            ByteArrayOutputStream attr = new ByteArrayOutputStream();
+            try (DataOutputStream a = new DataOutputStream(attr)) {
+                a.writeShort(annotationTypes.length);
+                for (int i = 0; i < annotationTypes.length; i++) {
+                    a.writeShort(9 + i);
+                    a.writeShort(1); // one pair: value = {42L, @Nested}
+                    a.writeShort(6);
+                    a.writeByte('[');
+                    a.writeShort(2);
+                    a.writeByte('J');
+                    a.writeShort(7);
+                    a.writeByte('@');
+                    a.writeShort(9 + i);
+                    a.writeShort(0);
+                }
+            }
+            out.writeShort(5);
+            out.writeInt(attr.size());
+            out.write(attr.toByteArray());
+        }
+        return baos.toByteArray();
+    }
+
+    static Path writeClassFile(final Path root, final String internalName, final String superName, final int accessFlags, final String... interfaces) throws IOException {
         Path target = root.resolve(internalName + ".class");
         Files.createDirectories(target.getParent());
-        Files.write(target, buildClassBytes(internalName, superName, accessFlags));
+        Files.write(target, buildClassBytes(internalName, superName, accessFlags, interfaces));
         return target;
     }
 
@@ -76,9 +217,32 @@ final class TestUtils {
         jos.closeEntry();
     }
 
+    // STORED (uncompressed) entry, e.g. an inner jar of a Spring Boot archive
+    static void addStoredEntry(final JarOutputStream jos, final String name, final byte[] data) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+        jos.putNextEntry(entry);
+        jos.write(data);
+        jos.closeEntry();
+    }
+
+    // Also finds fields declared by super classes, e.g. the parameters goals inherit from the generate goal
     static void setField(final Object target, final String fieldName, final Object value) throws ReflectiveOperationException {
-        Field f = target.getClass().getDeclaredField(fieldName);
-        f.setAccessible(true);
-        f.set(target, value);
+        for (Class<?> type = target.getClass(); null != type; type = type.getSuperclass()) {
+            try {
+                Field f = type.getDeclaredField(fieldName);
+                f.setAccessible(true);
+                f.set(target, value);
+                return;
+            } catch (NoSuchFieldException ignored) {
+                // try the super class
+            }
+        }
+        throw new NoSuchFieldException(fieldName);
     }
 }